@@ -3,12 +3,15 @@ package com.ai.group.Artificial.admin.controller;
 
 import com.ai.group.Artificial.admin.model.AdminRequest;
 import com.ai.group.Artificial.admin.service.AdminRequestService;
+import com.ai.group.Artificial.admin.service.SupportDispatcher;
+import com.ai.group.Artificial.admin.service.SupportQueueFeed;
+import com.ai.group.Artificial.chat.service.ChatEventCoalescer;
 import com.ai.group.Artificial.chat.service.UserDirectoryService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -22,13 +25,22 @@ public class AdminRequestController {
     private final AdminRequestService service;
     private final SimpMessagingTemplate simp;
     private final UserDirectoryService users;
+    private final SupportQueueFeed queue;
+    private final SupportDispatcher dispatcher;
+    private final ChatEventCoalescer events;
 
     public AdminRequestController(AdminRequestService service,
                                   SimpMessagingTemplate simp,
-                                  UserDirectoryService users) {
+                                  UserDirectoryService users,
+                                  SupportQueueFeed queue,
+                                  SupportDispatcher dispatcher,
+                                  ChatEventCoalescer events) {
         this.service = service;
         this.simp = simp;
         this.users = users;
+        this.queue = queue;
+        this.dispatcher = dispatcher;
+        this.events = events;
     }
 
     // Create/ensure an awaiting request for the *authenticated* user
@@ -56,27 +68,53 @@ public class AdminRequestController {
         return ResponseEntity.ok(req);
     }
 
+    // Close a chat; either participant may do it
+    @PostMapping("/{id}/close")
+    public ResponseEntity<AdminRequest> close(@PathVariable UUID id,
+                                              @AuthenticationPrincipal Jwt jwt) {
+        UUID closedBy = resolveIdFromJwt(jwt);
+        AdminRequest req = service.close(id, closedBy);
+        events.forget(id);
+
+        // 🔔 both chat widgets end the conversation on this
+        simp.convertAndSend("/topic/support/requests/" + id,
+                Map.of("type", "closed",
+                        "status", "CLOSED",
+                        "closedBy", closedBy));
+
+        return ResponseEntity.ok(req);
+    }
+
     // List all awaiting (unchanged)
     @GetMapping("/awaiting")
     public ResponseEntity<List<AdminRequest>> awaiting() {
         return ResponseEntity.ok(service.listAwaiting());
     }
 
+    // Same snapshot as the /app/support/queue subscription, for clients resyncing over HTTP
+    @GetMapping("/queue")
+    public ResponseEntity<SupportQueueFeed.Snapshot> queue() {
+        return ResponseEntity.ok(queue.snapshot());
+    }
+
+    // Auto-dispatch counters
+    @GetMapping("/dispatch")
+    public ResponseEntity<Map<String, Object>> dispatch() {
+        return ResponseEntity.ok(dispatcher.stats());
+    }
+
+    // Lost an accept race (another admin or the dispatcher has it)
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> conflict(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
     // --- helpers & DTOs ---
 
     private UUID resolveIdFromJwt(Jwt jwt) {
-        // 1) try UUID-ish claims straight from token
-        for (String key : new String[]{"id", "sub", "userId", "uid"}) {
-            String raw = str(jwt, key);
-            if (StringUtils.hasText(raw)) {
-                try { return UUID.fromString(raw); } catch (Exception ignore) {}
-            }
-        }
-        // 2) fallback by email via directory (must have been synced)
-        String email = str(jwt, "email");
-        return users.findIdByEmail(email)
+        return users.resolve(jwt)
                 .orElseThrow(() -> new IllegalArgumentException(
-                        "Cannot resolve user id from JWT (email=" + email + ")"));
+                        "Cannot resolve user id from JWT (email=" + str(jwt, "email") + ")"));
     }
 
     private static String str(Jwt jwt, String name) {
@@ -0,0 +1,27 @@
+package com.ai.group.Artificial.admin.controller;
+
+import com.ai.group.Artificial.admin.service.SupportQueueFeed;
+import com.ai.group.Artificial.chat.ws.StompDestinationGuard;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+@Controller
+@RequiredArgsConstructor
+public class SupportQueueWsController {
+
+    private final SupportQueueFeed queue;
+    private final StompDestinationGuard guard;
+
+    // Client subscribes to /topic/support/queue (deltas) first, then /app/support/queue:
+    // the reply goes only to this subscriber, deltas with seq <= snapshot.seq are already in it
+    @SubscribeMapping("/support/queue")
+    public SupportQueueFeed.Snapshot snapshot(Principal principal) {
+        if (!guard.canWatchSupportQueue(principal)) {
+            throw new IllegalArgumentException("Only admins can watch the support queue.");
+        }
+        return queue.snapshot();
+    }
+}
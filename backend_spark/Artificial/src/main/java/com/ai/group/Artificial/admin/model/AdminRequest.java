@@ -36,6 +36,9 @@ public class AdminRequest {
     @Column
     private UUID acceptedBy;
 
+    @Column
+    private Instant closedAt;
+
     @Column(length = 2000)
     private String initialMessage;
 
@@ -54,5 +57,7 @@ public class AdminRequest {
 
     public void setAcceptedBy(UUID acceptedBy) { this.acceptedBy = acceptedBy; }
 
+    public void setClosedAt(Instant closedAt) { this.closedAt = closedAt; }
+
     public void setInitialMessage(String initialMessage) { this.initialMessage = initialMessage; }
 }
@@ -2,5 +2,6 @@ package com.ai.group.Artificial.admin.model;
 
 public enum AdminRequestStatus {
     AWAITING,
-    ACCEPTED
+    ACCEPTED,
+    CLOSED
 }
\ No newline at end of file
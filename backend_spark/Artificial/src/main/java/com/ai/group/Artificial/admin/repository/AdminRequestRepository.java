@@ -3,10 +3,14 @@ package com.ai.group.Artificial.admin.repository;
 
 import com.ai.group.Artificial.admin.model.AdminRequest;
 import com.ai.group.Artificial.admin.model.AdminRequestStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,10 +22,33 @@ public interface AdminRequestRepository extends JpaRepository<AdminRequest, UUID
     );
 
     List<AdminRequest> findAllByStatusOrderByCreatedAtAsc(AdminRequestStatus status);
+
+    List<AdminRequest> findByStatusOrderByCreatedAtAsc(AdminRequestStatus status, Limit limit);
+
+    long countByStatus(AdminRequestStatus status);
+
+    /** Accepted (open) chats per admin, for the given admins only. */
+    interface AdminLoad {
+        UUID getAdminId();
+        long getOpen();
+    }
+
     @Query("""
-        select r from AdminRequest r
+        select r.acceptedBy as adminId, count(r) as open
+          from AdminRequest r
          where r.status = 'ACCEPTED'
-           and (r.userId = :id or r.acceptedBy = :id)
+           and r.acceptedBy in :admins
+         group by r.acceptedBy
+    """)
+    List<AdminLoad> countOpenByAdmin(@Param("admins") Collection<UUID> admins);
+
+    /** Accept only if still awaiting; 0 means someone else got there first. */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        update AdminRequest r
+           set r.status = 'ACCEPTED', r.acceptedBy = :adminId, r.acceptedAt = :at
+         where r.id = :id
+           and r.status = 'AWAITING'
     """)
-    List<AdminRequest> findAllOpenByParticipant(@Param("id") UUID id);
+    int claim(@Param("id") UUID id, @Param("adminId") UUID adminId, @Param("at") Instant at);
 }
@@ -6,10 +6,14 @@ import com.ai.group.Artificial.admin.model.AdminRequestStatus;
 import com.ai.group.Artificial.admin.repository.AdminRequestRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,6 +22,8 @@ import java.util.UUID;
 public class AdminRequestService {
 
     private final AdminRequestRepository repo;
+    private final ChatMembershipRegistry membership;
+    private final SupportQueueFeed queue;
 
     /** Create (or reuse) an awaiting request for this user. */
     @Transactional
@@ -38,6 +44,7 @@ public class AdminRequestService {
             AdminRequest req = existing.get();
             if (initialMessage != null && !initialMessage.isBlank()) {
                 req.setInitialMessage(initialMessage);
+                queue.updated(req);
             }
             return req; // updated in-place within Tx
         }
@@ -46,20 +53,55 @@ public class AdminRequestService {
         req.setUserId(userId);
         req.setInitialMessage(initialMessage);
         req.setStatus(AdminRequestStatus.AWAITING);
-        return repo.save(req);
+        req = repo.save(req);
+        queue.created(req);
+        return req;
     }
 
-    /** Mark as accepted and attach the admin who took it. */
+    /**
+     * Mark as accepted and attach the admin who took it. The status change is one conditional UPDATE, so
+     * concurrent accepts (admins racing, or the dispatcher) cannot both win.
+     * @throws IllegalStateException if another admin already has the request
+     */
     @Transactional
     public AdminRequest accept(UUID requestId, UUID adminId) {
+        AdminRequest req = claim(requestId, adminId);
+        if (req == null) {
+            req = getByIdOrThrow(requestId);
+            if (req.getStatus() == AdminRequestStatus.ACCEPTED && adminId.equals(req.getAcceptedBy())) {
+                return req; // already accepted by this admin
+            }
+            throw new IllegalStateException("AdminRequest " + requestId + " is already " + req.getStatus());
+        }
+        return req;
+    }
+
+    /** Accept on behalf of {@code adminId} if the request is still awaiting; null otherwise. */
+    @Transactional
+    public AdminRequest claim(UUID requestId, UUID adminId) {
+        if (repo.claim(requestId, adminId, Instant.now()) == 0) return null;
+        AdminRequest req = getByIdOrThrow(requestId);
+        membership.accepted(req);
+        queue.accepted(req);
+        return req;
+    }
+
+    /** Close the chat; only one of its participants may do so. */
+    @Transactional
+    public AdminRequest close(UUID requestId, UUID participantId) {
         AdminRequest req = repo.findById(requestId)
                 .orElseThrow(() -> new IllegalArgumentException("AdminRequest not found: " + requestId));
-        if (req.getStatus() == AdminRequestStatus.ACCEPTED) {
-            return req; // already accepted
+        if (req.getStatus() == AdminRequestStatus.CLOSED) {
+            return req; // already closed
+        }
+        if (!participantId.equals(req.getUserId()) && !participantId.equals(req.getAcceptedBy())) {
+            throw new IllegalArgumentException("Not a participant in this chat.");
         }
-        req.setStatus(AdminRequestStatus.ACCEPTED);
-        req.setAcceptedAt(Instant.now());
-        req.setAcceptedBy(adminId);
+        boolean wasAwaiting = req.getStatus() == AdminRequestStatus.AWAITING;
+        req.setStatus(AdminRequestStatus.CLOSED);
+        req.setClosedAt(Instant.now());
+        membership.closed(requestId);
+        if (wasAwaiting) queue.closed(req);
         return req;
     }
 
@@ -67,10 +109,26 @@ public class AdminRequestService {
         return repo.findAllByStatusOrderByCreatedAtAsc(AdminRequestStatus.AWAITING);
     }
 
+    /** The {@code limit} longest-waiting requests, oldest first. */
+    public List<AdminRequest> oldestAwaiting(int limit) {
+        return repo.findByStatusOrderByCreatedAtAsc(AdminRequestStatus.AWAITING, Limit.of(limit));
+    }
+
+    public long countAwaiting() {
+        return repo.countByStatus(AdminRequestStatus.AWAITING);
+    }
+
+    /** Accepted chats per admin, as stored (every pod, every accept before a restart); absent = none. */
+    public Map<UUID, Integer> openChatsByAdmin(Collection<UUID> admins) {
+        Map<UUID, Integer> out = new HashMap<>();
+        if (admins.isEmpty()) return out;
+        for (AdminRequestRepository.AdminLoad l : repo.countOpenByAdmin(admins)) {
+            out.put(l.getAdminId(), (int) l.getOpen());
+        }
+        return out;
+    }
+
     public AdminRequest getByIdOrThrow(UUID id) {
         return repo.findById(id).orElseThrow(() -> new IllegalArgumentException("AdminRequest not found: " + id));
     }
-    public List<AdminRequest> findOpenByParticipant(UUID participantId) {
-        return repo.findAllOpenByParticipant(participantId);
-    }
 }
@@ -0,0 +1,20 @@
+package com.ai.group.Artificial.admin.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** Defers in-memory side effects until the surrounding transaction has committed (runs now without one). */
+final class AfterCommit {
+
+    private AfterCommit() {}
+
+    static void run(Runnable r) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            r.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override public void afterCommit() { r.run(); }
+        });
+    }
+}
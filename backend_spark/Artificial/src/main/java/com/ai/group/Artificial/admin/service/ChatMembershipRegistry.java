@@ -0,0 +1,83 @@
+package com.ai.group.Artificial.admin.service;
+
+import com.ai.group.Artificial.admin.model.AdminRequest;
+import com.ai.group.Artificial.admin.model.AdminRequestStatus;
+import com.ai.group.Artificial.admin.repository.AdminRequestRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Participants of accepted support chats, keyed by request id, so a chat message does not need a JPA load
+ * of its {@link AdminRequest}. Filled when a request is accepted, dropped when it closes; a miss falls back
+ * to the database and caches the result if the request is (still) accepted. Entries live at most
+ * {@code ttl-ms}: with a relay broker another pod may close the chat, and only that pod evicts right away.
+ */
+@Component
+public class ChatMembershipRegistry {
+
+    /** The two sides of a chat; {@code adminId} is null until someone accepts. */
+    public record Members(UUID userId, UUID adminId, AdminRequestStatus status) {
+
+        public boolean contains(UUID id) {
+            return id != null && (id.equals(userId) || id.equals(adminId));
+        }
+
+        /** The other participant, or null if nobody is on the other side yet. */
+        public UUID other(UUID id) {
+            return Objects.equals(id, userId) ? adminId : userId;
+        }
+    }
+
+    private record Cached(Members members, long expiresAt) {}
+
+    private final AdminRequestRepository repo;
+    private final long ttlNanos;
+    private final Map<UUID, Cached> accepted = new ConcurrentHashMap<>();
+
+    public ChatMembershipRegistry(AdminRequestRepository repo,
+                                  @Value("${chat.membership.ttl-ms:5000}") long ttlMs) {
+        this.repo = repo;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    /** @throws IllegalArgumentException if the request does not exist */
+    public Members members(UUID requestId) {
+        Cached c = accepted.get(requestId);
+        if (c != null && c.expiresAt() - System.nanoTime() > 0) return c.members();
+
+        AdminRequest req = repo.findById(requestId)
+                .orElseThrow(() -> new IllegalArgumentException("AdminRequest not found: " + requestId));
+        Members m = new Members(req.getUserId(), req.getAcceptedBy(), req.getStatus());
+        if (m.status() == AdminRequestStatus.ACCEPTED) accepted.put(requestId, cached(m));
+        else accepted.remove(requestId);
+        return m;
+    }
+
+    // Chats closed on another pod and never asked for again would otherwise stay forever
+    @Scheduled(fixedDelayString = "${chat.membership.ttl-ms:5000}")
+    void evictExpired() {
+        long now = System.nanoTime();
+        accepted.values().removeIf(c -> c.expiresAt() - now <= 0);
+    }
+
+    void accepted(AdminRequest req) {
+        Members m = new Members(req.getUserId(), req.getAcceptedBy(), AdminRequestStatus.ACCEPTED);
+        AfterCommit.run(() -> accepted.put(req.getId(), cached(m)));
+    }
+
+    void closed(UUID requestId) {
+        accepted.remove(requestId);                        // stop serving it right away
+        AfterCommit.run(() -> accepted.remove(requestId)); // and drop anything a racing miss re-cached
+    }
+
+    private Cached cached(Members m) {
+        return new Cached(m, System.nanoTime() + ttlNanos);
+    }
+}
@@ -0,0 +1,128 @@
+package com.ai.group.Artificial.admin.service;
+
+import com.ai.group.Artificial.admin.model.AdminRequest;
+import com.ai.group.Artificial.chat.ws.PresenceRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands awaiting requests to online admins instead of letting them race for accept. Each tick reads the
+ * awaiting requests oldest-first and the accepted-chat count of every online admin from the database (one
+ * grouped query, so chats accepted on other pods or before a restart count), and gives every request to
+ * the least-loaded admin (min-heap) that is below {@code max-per-admin}. The claim itself is a conditional
+ * UPDATE, so a manual accept or another pod's dispatcher taking the same request just makes this one skip it.
+ * Admins count as online on the pod holding their WebSocket session, so with a relay broker each pod
+ * dispatches to its own admins.
+ */
+@Slf4j
+@Component
+public class SupportDispatcher {
+
+    private record Load(UUID adminId, int open) {}
+
+    private final AdminRequestService requests;
+    private final PresenceRegistry presence;
+    private final SimpMessagingTemplate simp;
+    private final boolean enabled;
+    private final int maxPerAdmin;
+
+    private final AtomicLong assigned = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+
+    public SupportDispatcher(AdminRequestService requests,
+                             PresenceRegistry presence,
+                             SimpMessagingTemplate simp,
+                             @Value("${support.dispatch.enabled:true}") boolean enabled,
+                             @Value("${support.dispatch.max-per-admin:3}") int maxPerAdmin) {
+        this.requests = requests;
+        this.presence = presence;
+        this.simp = simp;
+        this.enabled = enabled;
+        this.maxPerAdmin = maxPerAdmin;
+    }
+
+    @Scheduled(fixedDelayString = "${support.dispatch.interval-ms:500}")
+    public void dispatch() {
+        if (!enabled) return;
+        Set<UUID> admins = presence.onlineAdmins();
+        if (admins.isEmpty()) return;
+
+        Map<UUID, Integer> open = requests.openChatsByAdmin(admins);
+        PriorityQueue<Load> free = new PriorityQueue<>(Comparator.comparingInt(Load::open));
+        int capacity = 0;
+        for (UUID a : admins) {
+            int n = open.getOrDefault(a, 0);
+            if (n < maxPerAdmin) {
+                free.add(new Load(a, n));
+                capacity += maxPerAdmin - n;
+            }
+        }
+        if (free.isEmpty()) return;
+
+        // one spare per admin: an admin's own request is skipped for them
+        for (AdminRequest item : requests.oldestAwaiting(capacity + free.size())) {
+            Load admin = free.poll();
+            if (admin == null) break; // everyone is at capacity
+            if (admin.adminId().equals(item.getUserId())) {
+                // never route an admin's own request to themselves; try the next admin
+                Load next = free.poll();
+                free.add(admin);
+                if (next == null) continue;
+                admin = next;
+            }
+            AdminRequest req;
+            try {
+                req = requests.claim(item.getId(), admin.adminId());
+            } catch (RuntimeException e) {
+                log.warn("Dispatch of {} to {} failed: {}", item.getId(), admin.adminId(), e.toString());
+                free.add(admin);
+                continue;
+            }
+            if (req == null) {
+                lost.incrementAndGet(); // accepted or closed meanwhile
+                free.add(admin);
+                continue;
+            }
+            assigned.incrementAndGet();
+            notifyAssigned(req);
+            if (admin.open() + 1 < maxPerAdmin) free.add(new Load(admin.adminId(), admin.open() + 1));
+        }
+    }
+
+    /** This pod's counters only; cheap enough to scrape. */
+    public Map<String, Object> counters() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("assigned", assigned.get());
+        out.put("lost_races", lost.get());
+        return out;
+    }
+
+    /** {@link #counters()} plus the awaiting count, which is a database COUNT. */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = counters();
+        out.put("awaiting", requests.countAwaiting());
+        return out;
+    }
+
+    private void notifyAssigned(AdminRequest req) {
+        // same event the waiting user gets on a manual accept
+        simp.convertAndSend("/topic/support/requests/" + req.getId(),
+                Map.of("type", "accepted",
+                        "status", "ACCEPTED",
+                        "adminId", req.getAcceptedBy()));
+
+        Map<String, Object> task = new LinkedHashMap<>();
+        task.put("type", "assigned");
+        task.put("requestId", req.getId());
+        task.put("userId", req.getUserId());
+        task.put("initialMessage", req.getInitialMessage());
+        simp.convertAndSendToUser(req.getAcceptedBy().toString(), "/queue/support/assigned", task);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ai.group.Artificial.admin.service;
+
+import com.ai.group.Artificial.admin.model.AdminRequest;
+import com.ai.group.Artificial.admin.model.AdminRequestStatus;
+import com.ai.group.Artificial.admin.repository.AdminRequestRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * The awaiting support queue as a push stream. Admin dashboards take one {@link Snapshot} (on subscribing
+ * to {@code /app/support/queue}) and then apply the deltas broadcast on {@link #TOPIC}. Every delta carries
+ * the next sequence number; a client that sees a gap re-reads the snapshot and drops deltas it already has.
+ * Changes are published after their transaction commits, so the feed never shows a rolled-back request.
+ * <p>
+ * With a relay broker every pod publishes to the same topic, so nothing here is per-pod: sequence numbers
+ * come from the {@code support_queue_seq} database sequence, taken after the change committed, and the
+ * snapshot reads the sequence first and the awaiting rows second. Every change numbered at or below the
+ * snapshot's seq is therefore in it; deltas from two pods may still arrive out of order, which the client
+ * sees as a gap and resyncs once.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SupportQueueFeed {
+
+    public static final String TOPIC = "/topic/support/queue";
+
+    public enum Change { CREATED, UPDATED, ACCEPTED, CLOSED }
+
+    public record Item(UUID id, UUID userId, String initialMessage, Instant createdAt) {
+        static Item of(AdminRequest r) {
+            return new Item(r.getId(), r.getUserId(), r.getInitialMessage(), r.getCreatedAt());
+        }
+    }
+
+    /** Awaiting requests oldest-first, as of sequence number {@code seq}. */
+    public record Snapshot(long seq, List<Item> items) {}
+
+    /** {@code acceptedBy} is set for ACCEPTED only. */
+    public record Delta(long seq, Change type, Item request, UUID acceptedBy) {}
+
+    private final AdminRequestRepository repo;
+    private final JdbcTemplate jdbc;
+    private final SimpMessagingTemplate simp;
+
+    @PostConstruct
+    void createSequence() {
+        jdbc.execute("create sequence if not exists support_queue_seq minvalue 0 start 0");
+    }
+
+    public Snapshot snapshot() {
+        Long seq = jdbc.queryForObject(
+                "select case when is_called then last_value else 0 end from support_queue_seq", Long.class);
+        List<Item> items = repo.findAllByStatusOrderByCreatedAtAsc(AdminRequestStatus.AWAITING).stream()
+                .map(Item::of)
+                .toList();
+        return new Snapshot(seq == null ? 0 : seq, items);
+    }
+
+    void created(AdminRequest r)  { publish(Change.CREATED, Item.of(r), null); }
+
+    void updated(AdminRequest r)  { publish(Change.UPDATED, Item.of(r), null); }
+
+    /** Only for requests that were awaiting; others never were in the queue. */
+    void accepted(AdminRequest r) { publish(Change.ACCEPTED, Item.of(r), r.getAcceptedBy()); }
+
+    /** Only for requests that were awaiting; others never were in the queue. */
+    void closed(AdminRequest r)   { publish(Change.CLOSED, Item.of(r), null); }
+
+    private void publish(Change type, Item item, UUID acceptedBy) {
+        AfterCommit.run(() -> send(type, item, acceptedBy));
+    }
+
+    // Numbering and sending under one lock keeps this pod's broadcast order equal to its sequence order
+    private synchronized void send(Change type, Item item, UUID acceptedBy) {
+        try {
+            Long seq = jdbc.queryForObject("select nextval('support_queue_seq')", Long.class);
+            simp.convertAndSend(TOPIC, new Delta(seq, type, item, acceptedBy));
+        } catch (RuntimeException e) {
+            // clients notice the missing number (or the next one) and resync from the database
+            log.warn("Support queue delta {} {} not published: {}", type, item.id(), e.toString());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.ai.group.Artificial.chat.controller;
+
+import com.ai.group.Artificial.admin.service.ChatMembershipRegistry;
+import com.ai.group.Artificial.chat.model.Role;
+import com.ai.group.Artificial.chat.service.ChatArchive;
+import com.ai.group.Artificial.chat.service.ChatArchiver;
+import com.ai.group.Artificial.chat.service.ChatEventCoalescer;
+import com.ai.group.Artificial.chat.service.ChatHistoryService;
+import com.ai.group.Artificial.chat.service.ChatMessageWriter;
+import com.ai.group.Artificial.chat.service.ChatSearchService;
+import com.ai.group.Artificial.chat.service.UserDirectoryService;
+import com.ai.group.Artificial.chat.ws.PresenceRegistry;
+import com.ai.group.Artificial.chat.ws.SlowConsumerGuard;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/chat")
+public class ChatController {
+
+    private final ChatMessageWriter writer;
+    private final ChatHistoryService history;
+    private final ChatEventCoalescer events;
+    private final ChatArchiver archiver;
+    private final ChatSearchService search;
+    private final ChatMembershipRegistry membership;
+    private final UserDirectoryService users;
+    private final PresenceRegistry presence;
+    private final SlowConsumerGuard slowConsumers;
+    private final WebSocketMessageBrokerStats brokerStats;
+
+    /** GET /api/chat/{requestId}/messages?before=&limit=  newest page first, then older pages via "before" */
+    @GetMapping("/{requestId}/messages")
+    public ChatHistoryService.Page messages(@PathVariable UUID requestId,
+                                            @RequestParam(required = false) String before,
+                                            @RequestParam(defaultValue = "50") int limit,
+                                            Authentication auth) {
+        requireParticipant(requestId, auth);
+        return history.before(requestId, before, limit);
+    }
+
+    /** GET /api/chat/{requestId}/messages/since?cursor= | afterId=  what a reconnecting client missed */
+    @GetMapping("/{requestId}/messages/since")
+    public ChatHistoryService.Page since(@PathVariable UUID requestId,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) UUID afterId,
+                                         @RequestParam(defaultValue = "200") int limit,
+                                         Authentication auth) {
+        requireParticipant(requestId, auth);
+        if (cursor != null) return history.since(requestId, cursor, limit);
+        if (afterId != null) return history.sinceMessage(requestId, afterId, limit);
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursor or afterId is required");
+    }
+
+    /** GET /api/chat/stats  persistence, presence, identity cache and WebSocket outbound counters; admins only */
+    @GetMapping("/stats")
+    public Map<String, Object> stats(Authentication auth) {
+        requireAdmin(auth, "Only admins can read chat stats.");
+        Map<String, Object> ws = new LinkedHashMap<>(slowConsumers.stats());
+        ws.put("outbound_executor", brokerStats.getClientOutboundExecutorStatsInfo());
+        return Map.of("persistence", writer.stats(),
+                "presence", presence.stats(),
+                "identity_cache", users.identityCacheStats(),
+                "events", events.stats(),
+                "archive", archiver.stats(),
+                "websocket", ws);
+    }
+
+    /** GET /api/chat/search?q=&participant=&from=&to=&page=&size=  admins only; words match as prefixes */
+    @GetMapping("/search")
+    public ChatSearchService.Result search(@RequestParam String q,
+                                           @RequestParam(required = false) UUID participant,
+                                           @RequestParam(required = false) Instant from,
+                                           @RequestParam(required = false) Instant to,
+                                           @RequestParam(defaultValue = "0") int page,
+                                           @RequestParam(defaultValue = "20") int size,
+                                           Authentication auth) {
+        requireAdmin(auth, "Only admins can search chats.");
+        return search.search(q, participant, from, to, page, size);
+    }
+
+    /** GET /api/chat/presence  sessions, online users and online admins on this node */
+    @GetMapping("/presence")
+    public Map<String, Object> presence() {
+        return presence.stats();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> badCursor(IllegalArgumentException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler(ChatArchive.Unavailable.class)
+    @ResponseStatus(HttpStatus.GONE)
+    public Map<String, String> archiveUnavailable(ChatArchive.Unavailable e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    private void requireParticipant(UUID requestId, Authentication auth) {
+        UUID uid = users.resolveUserId(auth).orElse(null);
+        if (!membership.members(requestId).contains(uid)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a participant in this chat.");
+        }
+    }
+
+    private void requireAdmin(Authentication auth, String message) {
+        UUID uid = users.resolveUserId(auth).orElse(null);
+        if (users.findRole(uid).filter(r -> r == Role.ADMIN).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, message);
+        }
+    }
+}
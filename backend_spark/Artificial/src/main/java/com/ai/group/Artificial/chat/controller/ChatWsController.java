@@ -1,10 +1,12 @@
 // src/main/java/com/ai/group/Artificial/chat/ws/ChatWsController.java
 package com.ai.group.Artificial.chat.controller;
 
-import com.ai.group.Artificial.admin.model.AdminRequest;
-import com.ai.group.Artificial.admin.service.AdminRequestService;
+import com.ai.group.Artificial.admin.model.AdminRequestStatus;
+import com.ai.group.Artificial.admin.service.ChatMembershipRegistry;
 import com.ai.group.Artificial.chat.model.ChatMessage;
-import com.ai.group.Artificial.chat.repository.ChatMessageRepository;
+import com.ai.group.Artificial.chat.service.ChatEventCoalescer;
+import com.ai.group.Artificial.chat.service.ChatMessageWriter;
+import com.ai.group.Artificial.chat.ws.ChatMetrics;
 import com.ai.group.Artificial.chat.ws.WsPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.handler.annotation.*;
@@ -12,7 +14,6 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
-import java.util.Objects;
 import java.util.UUID;
 
 @Controller
@@ -20,8 +21,10 @@ import java.util.UUID;
 public class ChatWsController {
 
     private final SimpMessagingTemplate simp;
-    private final AdminRequestService adminRequests;
-    private final ChatMessageRepository messages;
+    private final ChatMembershipRegistry membership;
+    private final ChatMessageWriter messages;
+    private final ChatEventCoalescer events;
+    private final ChatMetrics metrics;
 
     // Client sends to: /app/chat/{requestId}
     // Payload: { "body": "hello" }
@@ -30,22 +33,14 @@ public class ChatWsController {
                      @Payload NewMessagePayload inbound,
                      Principal principal) {
 
+        long t0 = System.nanoTime();
         UUID senderId = principalId(principal);
-        if (senderId == null) {
-            throw new IllegalArgumentException("Unauthenticated WebSocket principal.");
-        }
-
-        AdminRequest req = adminRequests.getByIdOrThrow(requestId);
+        ChatMembershipRegistry.Members members = openChat(requestId, senderId);
+        long t1 = System.nanoTime();
 
-        // Only the two participants can chat (userId + acceptedBy)
-        boolean isMember = Objects.equals(senderId, req.getUserId())
-                || Objects.equals(senderId, req.getAcceptedBy());
-        if (!isMember) {
-            throw new IllegalArgumentException("Not a participant in this chat.");
-        }
-
-        // Persist the message
-        ChatMessage saved = messages.save(ChatMessage.of(requestId, senderId, inbound.body()));
+        // Queue for the next batch insert (durable mode: wait for the commit)
+        ChatMessage saved = messages.persist(ChatMessage.of(requestId, senderId, inbound.body()));
+        long t2 = System.nanoTime();
 
         // Deliver privately to BOTH sides via user queues
         // convertAndSendToUser uses Principal.getName(); we name users by their UUID string
@@ -55,10 +50,53 @@ public class ChatWsController {
         simp.convertAndSendToUser(senderId.toString(), dest, saved);
 
         // send to the other party if present
-        UUID target = Objects.equals(senderId, req.getUserId()) ? req.getAcceptedBy() : req.getUserId();
+        UUID target = members.other(senderId);
         if (target != null) {
             simp.convertAndSendToUser(target.toString(), dest, saved);
         }
+        metrics.recordSend(t1 - t0, t2 - t1, System.nanoTime() - t2);
+    }
+
+    // Client sends to: /app/chat/{requestId}/event
+    // Payload: { "type": "typing", "typing": true } or { "type": "read", "messageId": "..." }
+    // Not persisted; the peer receives the latest state per window on /user/queue/chat/{requestId}/events
+    @MessageMapping("/chat/{requestId}/event")
+    public void event(@DestinationVariable UUID requestId,
+                      @Payload ChatEventPayload inbound,
+                      Principal principal) {
+
+        UUID senderId = principalId(principal);
+        ChatMembershipRegistry.Members members = openChat(requestId, senderId);
+
+        UUID target = members.other(senderId);
+        if (target == null) return; // nobody to tell yet
+
+        ChatEventCoalescer.Type type;
+        try {
+            type = ChatEventCoalescer.Type.valueOf(String.valueOf(inbound.type()).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown chat event type: " + inbound.type());
+        }
+        events.submit(requestId, senderId, target, type,
+                type == ChatEventCoalescer.Type.TYPING ? Boolean.TRUE.equals(inbound.typing()) : null,
+                type == ChatEventCoalescer.Type.READ ? inbound.messageId() : null);
+    }
+
+    // Cached for accepted chats; only a miss goes to the database
+    private ChatMembershipRegistry.Members openChat(UUID requestId, UUID senderId) {
+        if (senderId == null) {
+            throw new IllegalArgumentException("Unauthenticated WebSocket principal.");
+        }
+        ChatMembershipRegistry.Members members = membership.members(requestId);
+
+        // Only the two participants can chat (userId + acceptedBy)
+        if (!members.contains(senderId)) {
+            throw new IllegalArgumentException("Not a participant in this chat.");
+        }
+        if (members.status() == AdminRequestStatus.CLOSED) {
+            throw new IllegalArgumentException("This chat is closed.");
+        }
+        return members;
     }
 
     private static UUID principalId(Principal p) {
@@ -68,4 +106,7 @@ public class ChatWsController {
 
     /** Minimal payload the client sends. */
     public record NewMessagePayload(String body) {}
+
+    /** Ephemeral event; {@code typing} for "typing", {@code messageId} (last read) for "read". */
+    public record ChatEventPayload(String type, Boolean typing, UUID messageId) {}
 }
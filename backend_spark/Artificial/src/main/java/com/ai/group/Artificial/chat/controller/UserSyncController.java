@@ -1,11 +1,15 @@
 package com.ai.group.Artificial.chat.controller;
 
 import com.ai.group.Artificial.chat.dto.UserSyncDto;
+import com.ai.group.Artificial.chat.service.UserBulkSyncService;
 import com.ai.group.Artificial.chat.service.UserDirectoryService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.UUID;
 
 @RestController
@@ -14,6 +18,7 @@ import java.util.UUID;
 public class UserSyncController {
 
     private final UserDirectoryService service;
+    private final UserBulkSyncService bulk;
 
     @PostMapping
     public ResponseEntity<Void> upsert(@RequestBody UserSyncDto dto) {
@@ -21,6 +26,12 @@ public class UserSyncController {
         return ResponseEntity.noContent().build();
     }
 
+    // Full/partial resync: JSON array or NDJSON of UserSyncDto, applied in chunked batch upserts
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<UserBulkSyncService.Result> bulk(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(bulk.sync(request.getInputStream()));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable UUID id) {
         service.delete(id);
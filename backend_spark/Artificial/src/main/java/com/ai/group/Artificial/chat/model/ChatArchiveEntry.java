@@ -0,0 +1,49 @@
+package com.ai.group.Artificial.chat.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Where one archived run of a conversation lives: a gzip member at {@code offset} in a segment file. */
+@Entity
+@Table(name = "chat_archive_index",
+        indexes = @Index(name = "ix_chatarchive_request", columnList = "request_id, first_at"))
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatArchiveEntry {
+
+    @Id
+    @Column(nullable = false, updatable = false)
+    private UUID id;
+
+    @Column(name = "request_id", nullable = false)
+    private UUID requestId;
+
+    @Column(nullable = false)
+    private String segment;     // file name inside chat.archive.dir
+
+    @Column(nullable = false)
+    private String host;        // pod that wrote the segment
+
+    @Column(name = "byte_offset", nullable = false)
+    private long offset;
+
+    @Column(name = "byte_length", nullable = false)
+    private int length;
+
+    @Column(nullable = false)
+    private int messages;
+
+    @Column(name = "first_at", nullable = false)
+    private Instant firstAt;
+
+    @Column(name = "last_at", nullable = false)
+    private Instant lastAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+}
@@ -11,7 +11,8 @@ import java.util.UUID;
 @Entity
 @Table(name = "chat_messages",
         indexes = {
-                @Index(name = "ix_chatmsg_request", columnList = "request_id"),
+                // keyset pagination of one conversation: (request_id, created_at, id)
+                @Index(name = "ix_chatmsg_request_created_id", columnList = "request_id, created_at, id"),
                 @Index(name = "ix_chatmsg_created", columnList = "created_at")
         })
 @Getter @Setter
@@ -0,0 +1,14 @@
+package com.ai.group.Artificial.chat.repository;
+
+import com.ai.group.Artificial.chat.model.ChatArchiveEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ChatArchiveEntryRepository extends JpaRepository<ChatArchiveEntry, UUID> {
+
+    List<ChatArchiveEntry> findByRequestIdOrderByFirstAtAsc(UUID requestId);
+
+    boolean existsByRequestId(UUID requestId);
+}
@@ -3,10 +3,47 @@ package com.ai.group.Artificial.chat.repository;
 
 import com.ai.group.Artificial.chat.model.ChatMessage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID> {
     List<ChatMessage> findByRequestIdOrderByCreatedAtAsc(UUID requestId);
+
+    // Keyset pages over ix_chatmsg_request_created_id; the row comparison keeps each page an index range scan
+
+    @Query(value = """
+        select * from chat_messages
+         where request_id = :requestId
+         order by created_at desc, id desc
+         limit :limit
+    """, nativeQuery = true)
+    List<ChatMessage> findLatest(@Param("requestId") UUID requestId, @Param("limit") int limit);
+
+    @Query(value = """
+        select * from chat_messages
+         where request_id = :requestId
+           and (created_at, id) < (:createdAt, :id)
+         order by created_at desc, id desc
+         limit :limit
+    """, nativeQuery = true)
+    List<ChatMessage> findBefore(@Param("requestId") UUID requestId,
+                                 @Param("createdAt") Instant createdAt,
+                                 @Param("id") UUID id,
+                                 @Param("limit") int limit);
+
+    @Query(value = """
+        select * from chat_messages
+         where request_id = :requestId
+           and (created_at, id) > (:createdAt, :id)
+         order by created_at asc, id asc
+         limit :limit
+    """, nativeQuery = true)
+    List<ChatMessage> findAfter(@Param("requestId") UUID requestId,
+                                @Param("createdAt") Instant createdAt,
+                                @Param("id") UUID id,
+                                @Param("limit") int limit);
 }
@@ -0,0 +1,187 @@
+package com.ai.group.Artificial.chat.service;
+
+import com.ai.group.Artificial.chat.model.ChatArchiveEntry;
+import com.ai.group.Artificial.chat.model.ChatMessage;
+import com.ai.group.Artificial.chat.repository.ChatArchiveEntryRepository;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for chat messages: append-only segment files in {@code chat.archive.dir}. Each archived run of
+ * a conversation is one self-contained gzip member of NDJSON messages appended to the current segment
+ * (a segment is therefore itself a valid .gz file); {@code chat_archive_index} maps the request id to
+ * segment, offset and length, so a lookup reads only that member. Segments roll at {@code segment-max-bytes}.
+ * The index row also names the host that wrote the segment; a pod that cannot find the file (no shared
+ * mount) fails the read with {@link Unavailable} instead of serving a partial history.
+ */
+@Slf4j
+@Service
+public class ChatArchive {
+
+    private static final DateTimeFormatter SEGMENT_TS = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final ChatArchiveEntryRepository index;
+    private final ObjectMapper mapper;
+    private final Path dir;
+    private final long segmentMaxBytes;
+    private final String host;
+    private final Map<UUID, List<ChatMessage>> recent; // decoded conversations, LRU, guarded by itself
+
+    private Path current; // guarded by this
+
+    public ChatArchive(ChatArchiveEntryRepository index,
+                       ObjectMapper mapper,
+                       @Value("${chat.archive.dir:./data/chat-archive}") String dir,
+                       @Value("${chat.archive.segment-max-bytes:67108864}") long segmentMaxBytes,
+                       @Value("${chat.archive.read-cache:64}") int readCache,
+                       @Value("${chat.archive.host:${HOSTNAME:localhost}}") String host) {
+        this.index = index;
+        this.mapper = mapper;
+        this.dir = Path.of(dir);
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.host = host;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<UUID, List<ChatMessage>> e) {
+                return size() > readCache;
+            }
+        };
+    }
+
+    /**
+     * Append the messages (oldest-first, one conversation) and force them to disk. The returned entry is not
+     * saved: the caller stores it in the same transaction that deletes the hot rows.
+     */
+    public synchronized ChatArchiveEntry append(UUID requestId, List<ChatMessage> messages) throws IOException {
+        byte[] member = encode(messages);
+        Path seg = segmentFor(member.length);
+        long offset;
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            offset = ch.size();
+            ByteBuffer buf = ByteBuffer.wrap(member);
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        forget(requestId);
+        return ChatArchiveEntry.builder()
+                .id(UUID.randomUUID())
+                .requestId(requestId)
+                .segment(seg.getFileName().toString())
+                .host(host)
+                .offset(offset)
+                .length(member.length)
+                .messages(messages.size())
+                .firstAt(messages.get(0).getCreatedAt())
+                .lastAt(messages.get(messages.size() - 1).getCreatedAt())
+                .archivedAt(Instant.now())
+                .build();
+    }
+
+    public boolean contains(UUID requestId) {
+        return index.existsByRequestId(requestId);
+    }
+
+    /** Every archived message of the conversation, oldest-first; empty if none was archived. */
+    public List<ChatMessage> read(UUID requestId) {
+        synchronized (recent) {
+            List<ChatMessage> hit = recent.get(requestId);
+            if (hit != null) return hit;
+        }
+        List<ChatMessage> out = new ArrayList<>();
+        for (ChatArchiveEntry e : index.findByRequestIdOrderByFirstAtAsc(requestId)) {
+            out.addAll(readMember(e));
+        }
+        out.sort(ChatArchive::compare);
+        List<ChatMessage> result = List.copyOf(out);
+        synchronized (recent) { recent.put(requestId, result); }
+        return result;
+    }
+
+    /** An archived segment is not present in this pod's archive directory. */
+    public static class Unavailable extends RuntimeException {
+        public Unavailable(ChatArchiveEntry e) {
+            super("Archived chat " + e.getRequestId() + " is in segment " + e.getSegment()
+                    + " written by " + e.getHost() + ", which is not available on this node.");
+        }
+    }
+
+    void forget(UUID requestId) {
+        synchronized (recent) { recent.remove(requestId); }
+    }
+
+    /** (created_at, id) order, matching Postgres' unsigned uuid comparison. */
+    static int compare(ChatMessage a, ChatMessage b) {
+        int c = a.getCreatedAt().compareTo(b.getCreatedAt());
+        if (c != 0) return c;
+        c = Long.compareUnsigned(a.getId().getMostSignificantBits(), b.getId().getMostSignificantBits());
+        return c != 0 ? c : Long.compareUnsigned(a.getId().getLeastSignificantBits(), b.getId().getLeastSignificantBits());
+    }
+
+    private List<ChatMessage> readMember(ChatArchiveEntry e) {
+        Path seg = dir.resolve(e.getSegment());
+        if (!Files.exists(seg)) throw new Unavailable(e);
+        ByteBuffer buf = ByteBuffer.allocate(e.getLength());
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.READ)) {
+            long pos = e.getOffset();
+            while (buf.hasRemaining()) {
+                int n = ch.read(buf, pos);
+                if (n < 0) throw new IOException("Truncated archive segment " + e.getSegment());
+                pos += n;
+            }
+            List<ChatMessage> out = new ArrayList<>(e.getMessages());
+            try (MappingIterator<ChatMessage> it = mapper.readerFor(ChatMessage.class)
+                    .readValues(new GZIPInputStream(new ByteArrayInputStream(buf.array())))) {
+                while (it.hasNextValue()) out.add(it.nextValue());
+            }
+            return out;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read archived chat " + e.getRequestId(), ex);
+        }
+    }
+
+    private byte[] encode(List<ChatMessage> messages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(bytes)) {
+            for (ChatMessage m : messages) {
+                gz.write(mapper.writeValueAsBytes(m));
+                gz.write('\n');
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private Path segmentFor(int bytes) throws IOException {
+        if (current == null) {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                current = files.filter(p -> p.getFileName().toString().startsWith("segment-"))
+                        .max(Comparator.comparing(p -> p.getFileName().toString()))
+                        .orElse(null);
+            }
+        }
+        if (current == null || Files.size(current) + bytes > segmentMaxBytes) {
+            current = dir.resolve("segment-" + SEGMENT_TS.format(Instant.now()) + "-" + UUID.randomUUID().toString().substring(0, 8) + ".ndjson.gz");
+            log.info("New chat archive segment {}", current.getFileName());
+        }
+        return current;
+    }
+}
@@ -0,0 +1,177 @@
+package com.ai.group.Artificial.chat.service;
+
+import com.ai.group.Artificial.chat.model.ChatArchiveEntry;
+import com.ai.group.Artificial.chat.model.ChatMessage;
+import com.ai.group.Artificial.chat.repository.ChatArchiveEntryRepository;
+import com.ai.group.Artificial.chat.repository.ChatMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves chat messages from the hot table to {@link ChatArchive}:
+ * <ul>
+ *   <li>conversations closed more than {@code after-days} ago are archived and their rows deleted;</li>
+ *   <li>monthly partitions older than {@code hot-months} are emptied (whatever is still in them is archived,
+ *       closed or not) and dropped, which bounds the hot table regardless of volume.</li>
+ * </ul>
+ * A conversation is written to disk and forced before its rows are deleted, and the index row is committed
+ * with the delete, so a crash at any point loses nothing (at worst leaves unreferenced bytes in a segment).
+ * <p>
+ * Every pod schedules a run, but only the one holding a Postgres advisory lock archives; the others skip
+ * that run. Segments are written to this pod's {@code chat.archive.dir} and the index row records the host,
+ * so with more than one pod the directory must be a shared mount or history reads elsewhere return 410.
+ */
+@Slf4j
+@Service
+public class ChatArchiver {
+
+    private static final long LOCK_KEY = 0x63686174_61726368L; // "chatarch"
+
+    private final ChatMessageRepository messages;
+    private final ChatArchiveEntryRepository index;
+    private final ChatArchive archive;
+    private final ChatMessagePartitions partitions;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final Duration archiveAfter;
+    private final int hotMonths;
+    private final int batch;
+
+    private final AtomicLong conversations = new AtomicLong();
+    private final AtomicLong archivedMessages = new AtomicLong();
+    private final AtomicLong droppedPartitions = new AtomicLong();
+    private final AtomicLong skippedRuns = new AtomicLong();
+
+    public ChatArchiver(ChatMessageRepository messages,
+                        ChatArchiveEntryRepository index,
+                        ChatArchive archive,
+                        ChatMessagePartitions partitions,
+                        JdbcTemplate jdbc,
+                        TransactionTemplate tx,
+                        @Value("${chat.archive.enabled:true}") boolean enabled,
+                        @Value("${chat.archive.after-days:30}") int afterDays,
+                        @Value("${chat.archive.hot-months:6}") int hotMonths,
+                        @Value("${chat.archive.batch:200}") int batch) {
+        this.messages = messages;
+        this.index = index;
+        this.archive = archive;
+        this.partitions = partitions;
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.enabled = enabled;
+        this.archiveAfter = Duration.ofDays(afterDays);
+        this.hotMonths = hotMonths;
+        this.batch = batch;
+    }
+
+    @Scheduled(initialDelayString = "${chat.archive.initial-delay-ms:60000}",
+               fixedDelayString = "${chat.archive.interval-ms:3600000}")
+    public void run() {
+        if (!enabled) return;
+        try {
+            // session lock: held on this connection for the whole run, archiving uses other pool connections
+            boolean ran = jdbc.execute((ConnectionCallback<Boolean>) con -> {
+                if (!advisoryLock(con, "pg_try_advisory_lock")) return false;
+                try {
+                    archiveClosed();
+                    enforceRetention();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    advisoryLock(con, "pg_advisory_unlock");
+                }
+                return true;
+            });
+            if (!ran) {
+                skippedRuns.incrementAndGet();
+                log.debug("Chat archive run skipped: another pod holds the lock");
+            }
+        } catch (Exception e) {
+            log.warn("Chat archive run failed: {}", e.toString());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("conversations", conversations.get());
+        out.put("messages", archivedMessages.get());
+        out.put("dropped_partitions", droppedPartitions.get());
+        out.put("skipped_runs", skippedRuns.get());
+        return out;
+    }
+
+    private static boolean advisoryLock(Connection con, String function) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("select " + function + "(?)")) {
+            ps.setLong(1, LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void archiveClosed() throws IOException {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(archiveAfter));
+        List<UUID> ids;
+        do {
+            ids = jdbc.queryForList("""
+                    select r.id from admin_requests r
+                     where r.status = 'CLOSED'
+                       and r.closed_at < ?
+                       and exists (select 1 from chat_messages m where m.request_id = r.id)
+                     limit ?
+                    """, UUID.class, cutoff, batch);
+            for (UUID id : ids) archive(id);
+        } while (ids.size() == batch);
+    }
+
+    private void enforceRetention() throws IOException {
+        YearMonth oldestHot = YearMonth.now(ZoneOffset.UTC).minusMonths(hotMonths);
+        for (YearMonth month : partitions.months()) {
+            if (!month.isBefore(oldestHot)) break;
+            for (UUID id : partitions.requestIdsIn(month)) archive(id);
+            if (partitions.dropIfEmpty(month)) droppedPartitions.incrementAndGet();
+        }
+    }
+
+    /** Archive every hot message of one conversation. */
+    void archive(UUID requestId) throws IOException {
+        List<ChatMessage> hot = messages.findByRequestIdOrderByCreatedAtAsc(requestId);
+        if (hot.isEmpty()) return;
+        ChatMessage last = hot.get(hot.size() - 1);
+
+        ChatArchiveEntry entry = archive.append(requestId, hot);
+        tx.executeWithoutResult(s -> {
+            index.save(entry);
+            jdbc.update("delete from chat_messages where request_id = ? and (created_at, id) <= (?, ?)",
+                    requestId, Timestamp.from(last.getCreatedAt()), last.getId());
+        });
+        archive.forget(requestId); // a read between append and commit may have cached the old state
+        conversations.incrementAndGet();
+        archivedMessages.addAndGet(hot.size());
+        log.debug("Archived {} messages of chat {} to {}", hot.size(), requestId, entry.getSegment());
+    }
+}
@@ -0,0 +1,117 @@
+package com.ai.group.Artificial.chat.service;
+
+import com.ai.group.Artificial.chat.ws.SlowConsumerGuard;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ephemeral chat events (typing, read receipts): never persisted, delivered to the other participant on
+ * {@code /user/queue/chat/{requestId}/events}. Per sender, request and event type the first event goes out
+ * at once; anything arriving within {@code window-ms} after that only replaces a pending slot, and the
+ * latest state is sent when the window ends. A burst of keystrokes becomes at most one frame per window.
+ */
+@Service
+public class ChatEventCoalescer {
+
+    public enum Type { TYPING, READ }
+
+    /** What the peer receives; {@code typing} is set for TYPING, {@code messageId} (last read) for READ. */
+    public record ChatEvent(String type, UUID requestId, UUID from, Boolean typing, UUID messageId, long at) {}
+
+    private record Key(UUID requestId, UUID from, Type type) {}
+
+    private static final class Slot {
+        long lastSentNanos;
+        UUID to;
+        ChatEvent pending;  // guarded by the slot
+        boolean scheduled;
+    }
+
+    private static final Map<String, Object> EPHEMERAL = Map.of(SlowConsumerGuard.EPHEMERAL, "true");
+
+    private final SimpMessagingTemplate simp;
+    private final long windowNanos;
+    private final Map<Key, Slot> slots = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private final LongAdder received = new LongAdder();
+    private final LongAdder forwarded = new LongAdder();
+
+    public ChatEventCoalescer(SimpMessagingTemplate simp,
+                              @Value("${chat.events.window-ms:300}") long windowMs) {
+        this.simp = simp;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chat-events");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        timer.shutdownNow();
+    }
+
+    public void submit(UUID requestId, UUID from, UUID to, Type type, Boolean typing, UUID messageId) {
+        received.increment();
+        ChatEvent ev = new ChatEvent(type.name(), requestId, from, typing, messageId, Instant.now().toEpochMilli());
+        Slot slot = slots.computeIfAbsent(new Key(requestId, from, type), k -> new Slot());
+        long now = System.nanoTime();
+        synchronized (slot) {
+            slot.to = to;
+            if (!slot.scheduled && now - slot.lastSentNanos >= windowNanos) {
+                slot.lastSentNanos = now;
+                send(to, ev);
+                return;
+            }
+            slot.pending = ev;
+            if (!slot.scheduled) {
+                slot.scheduled = true;
+                long delay = Math.max(0, slot.lastSentNanos + windowNanos - now);
+                timer.schedule(() -> flush(slot), delay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /** Drop coalescing state of a finished chat. */
+    public void forget(UUID requestId) {
+        slots.keySet().removeIf(k -> k.requestId().equals(requestId));
+    }
+
+    public Map<String, Object> stats() {
+        long in = received.sum(), out = forwarded.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("received", in);
+        m.put("forwarded", out);
+        m.put("coalesced", in - out);
+        m.put("slots", slots.size());
+        return m;
+    }
+
+    private void flush(Slot slot) {
+        synchronized (slot) {
+            slot.scheduled = false;
+            if (slot.pending == null) return;
+            slot.lastSentNanos = System.nanoTime();
+            send(slot.to, slot.pending);
+            slot.pending = null;
+        }
+    }
+
+    private void send(UUID to, ChatEvent ev) {
+        forwarded.increment();
+        simp.convertAndSendToUser(to.toString(), "/queue/chat/" + ev.requestId() + "/events", ev, EPHEMERAL);
+    }
+}
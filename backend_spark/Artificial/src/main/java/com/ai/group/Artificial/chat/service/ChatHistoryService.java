@@ -0,0 +1,134 @@
+package com.ai.group.Artificial.chat.service;
+
+import com.ai.group.Artificial.chat.model.ChatMessage;
+import com.ai.group.Artificial.chat.repository.ChatMessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keyset-paginated chat history. A cursor is the opaque (created_at, id) of a message, so every page is one
+ * index range scan on (request_id, created_at, id) no matter how long the conversation is. Messages moved
+ * to {@link ChatArchive} are merged in transparently; they are always older than what is still hot.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChatHistoryService {
+
+    public static final int MAX_LIMIT = 200;
+
+    /** Messages oldest-first; {@code cursor} continues in the same direction, null when there is nothing more. */
+    public record Page(List<ChatMessage> messages, String cursor) {}
+
+    private final ChatMessageRepository repo;
+    private final ChatArchive archive;
+
+    /** Newest {@code limit} messages before {@code before} (or the newest overall), returned oldest-first. */
+    @Transactional(readOnly = true)
+    public Page before(UUID requestId, String before, int limit) {
+        int n = clamp(limit);
+        Cursor c = before == null || before.isBlank() ? null : Cursor.decode(before);
+        List<ChatMessage> desc = c == null
+                ? repo.findLatest(requestId, n + 1)
+                : repo.findBefore(requestId, c.createdAt(), c.id(), n + 1);
+
+        // hot rows ran out: continue into the archive
+        if (desc.size() <= n && archive.contains(requestId)) {
+            List<ChatMessage> cold = archive.read(requestId);
+            desc = new ArrayList<>(desc);
+            for (int i = cold.size() - 1; i >= 0 && desc.size() <= n; i--) {
+                ChatMessage m = cold.get(i);
+                if (c == null || c.isAfter(m)) desc.add(m);
+            }
+        }
+
+        boolean more = desc.size() > n;
+        List<ChatMessage> page = new ArrayList<>(desc.subList(0, Math.min(n, desc.size())));
+        Collections.reverse(page);
+        return new Page(page, more ? Cursor.of(page.get(0)) : null);
+    }
+
+    /** Messages after {@code after}, oldest-first: what a reconnecting client missed. */
+    @Transactional(readOnly = true)
+    public Page since(UUID requestId, String after, int limit) {
+        return since(requestId, Cursor.decode(after), limit);
+    }
+
+    /**
+     * Same as {@link #since} but anchored at the last message the client received. Messages are written in
+     * order by one flusher, so if that message is not persisted yet nothing after it is either.
+     */
+    @Transactional(readOnly = true)
+    public Page sinceMessage(UUID requestId, UUID lastMessageId, int limit) {
+        return repo.findById(lastMessageId)
+                .or(() -> archive.contains(requestId)
+                        ? archive.read(requestId).stream().filter(m -> m.getId().equals(lastMessageId)).findFirst()
+                        : Optional.<ChatMessage>empty())
+                .filter(m -> requestId.equals(m.getRequestId()))
+                .map(m -> since(requestId, new Cursor(m.getCreatedAt(), m.getId()), limit))
+                .orElseGet(() -> new Page(List.of(), null));
+    }
+
+    private Page since(UUID requestId, Cursor c, int limit) {
+        int n = clamp(limit);
+        List<ChatMessage> asc = new ArrayList<>();
+        if (archive.contains(requestId)) {
+            for (ChatMessage m : archive.read(requestId)) {
+                if (asc.size() > n) break;
+                if (c.isBefore(m)) asc.add(m);
+            }
+        }
+        if (asc.size() <= n) {
+            asc.addAll(repo.findAfter(requestId, c.createdAt(), c.id(), n + 1 - asc.size()));
+        }
+        boolean more = asc.size() > n;
+        List<ChatMessage> page = asc.subList(0, Math.min(n, asc.size()));
+        return new Page(page, more ? Cursor.of(page.get(page.size() - 1)) : null);
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(MAX_LIMIT, limit));
+    }
+
+    /** Position of a message in its conversation; encoded as base64url("createdAt|id"). */
+    public record Cursor(Instant createdAt, UUID id) {
+
+        public static String of(ChatMessage m) {
+            String raw = m.getCreatedAt() + "|" + m.getId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int bar = raw.indexOf('|');
+                return new Cursor(Instant.parse(raw.substring(0, bar)), UUID.fromString(raw.substring(bar + 1)));
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        /** True if {@code m} sorts before this position. */
+        boolean isAfter(ChatMessage m) {
+            return ChatArchive.compare(m, probe()) < 0;
+        }
+
+        /** True if {@code m} sorts after this position. */
+        boolean isBefore(ChatMessage m) {
+            return ChatArchive.compare(m, probe()) > 0;
+        }
+
+        private ChatMessage probe() {
+            return ChatMessage.builder().createdAt(createdAt).id(id).build();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.ai.group.Artificial.chat.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@code chat_messages} range-partitioned by month of {@code created_at}. Hibernate creates a plain
+ * table from the entity; on startup it is swapped for a partitioned one (rows copied over if there are
+ * any), and a daily job keeps partitions {@code ahead-months} into the future so inserts always find one.
+ * Old months are dropped as a whole by {@link ChatArchiver} once everything in them is archived.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory") // the schema must exist first
+public class ChatMessagePartitions {
+
+    private static final String TABLE = "chat_messages";
+    private static final Pattern PARTITION = Pattern.compile("^chat_messages_(\\d{4})_(\\d{2})$");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int aheadMonths;
+
+    public ChatMessagePartitions(JdbcTemplate jdbc,
+                                 TransactionTemplate tx,
+                                 @Value("${chat.partitions.ahead-months:2}") int aheadMonths) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.aheadMonths = aheadMonths;
+    }
+
+    @PostConstruct
+    void init() {
+        String kind = jdbc.queryForObject(
+                "select coalesce((select relkind::text from pg_class where oid = to_regclass(?)), '')", String.class, TABLE);
+        if ("r".equals(kind)) tx.executeWithoutResult(s -> convert());
+        maintain();
+    }
+
+    /** Create the current month and the next {@code ahead-months}; idempotent. */
+    @Scheduled(cron = "${chat.partitions.maintain-cron:0 15 3 * * *}")
+    public void maintain() {
+        YearMonth now = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= aheadMonths; i++) create(now.plusMonths(i));
+    }
+
+    /** Existing monthly partitions, oldest first. */
+    public List<YearMonth> months() {
+        return jdbc.queryForList("""
+                select c.relname from pg_inherits i
+                  join pg_class c on c.oid = i.inhrelid
+                 where i.inhparent = to_regclass(?)
+                 order by c.relname
+                """, String.class, TABLE).stream()
+                .map(PARTITION::matcher)
+                .filter(Matcher::matches)
+                .map(m -> YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))))
+                .toList();
+    }
+
+    public List<UUID> requestIdsIn(YearMonth month) {
+        return jdbc.queryForList("select distinct request_id from " + name(month), UUID.class);
+    }
+
+    /** Drop a month if it holds no rows; returns whether it was dropped. */
+    public boolean dropIfEmpty(YearMonth month) {
+        Boolean dropped = tx.execute(s -> {
+            Integer any = jdbc.queryForObject("select count(*) from (select 1 from " + name(month) + " limit 1) t", Integer.class);
+            if (any != null && any > 0) return false;
+            jdbc.execute("drop table " + name(month));
+            return true;
+        });
+        if (Boolean.TRUE.equals(dropped)) log.info("Dropped chat partition {}", name(month));
+        return Boolean.TRUE.equals(dropped);
+    }
+
+    private void convert() {
+        jdbc.execute("alter table " + TABLE + " rename to chat_messages_unpartitioned");
+        jdbc.execute("""
+                create table chat_messages (
+                    id uuid not null,
+                    request_id uuid not null,
+                    sender_id uuid not null,
+                    body text not null,
+                    created_at timestamp(6) with time zone not null
+                ) partition by range (created_at)
+                """);
+        // partitions for rows that already exist
+        List<String> months = jdbc.queryForList("""
+                select distinct to_char(created_at at time zone 'UTC', 'YYYY_MM') from chat_messages_unpartitioned
+                """, String.class);
+        for (String m : months) create(YearMonth.parse(m, SUFFIX));
+        maintain();
+        int copied = jdbc.update("""
+                insert into chat_messages (id, request_id, sender_id, body, created_at)
+                select id, request_id, sender_id, body, created_at from chat_messages_unpartitioned
+                """);
+        jdbc.execute("drop table chat_messages_unpartitioned");
+        // the partition key has to be part of the primary key
+        jdbc.execute("alter table chat_messages add primary key (id, created_at)");
+        jdbc.execute("create index ix_chatmsg_request_created_id on chat_messages (request_id, created_at, id)");
+        jdbc.execute("create index ix_chatmsg_created on chat_messages (created_at)");
+        log.info("chat_messages is now partitioned by month ({} rows copied)", copied);
+    }
+
+    private void create(YearMonth month) {
+        jdbc.execute("create table if not exists " + name(month) + " partition of " + TABLE
+                + " for values from ('" + month.atDay(1) + " 00:00:00+00') to ('" + month.plusMonths(1).atDay(1) + " 00:00:00+00')");
+    }
+
+    private static String name(YearMonth month) {
+        return TABLE + "_" + month.format(SUFFIX);
+    }
+}
@@ -0,0 +1,260 @@
+package com.ai.group.Artificial.chat.service;
+
+import com.ai.group.Artificial.chat.model.ChatMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind persistence for chat messages. {@link #submit} assigns id and timestamp, queues the message
+ * and returns at once; one flusher thread drains the bounded queue and writes JDBC batch inserts whenever
+ * {@code batch-size} messages are waiting or {@code flush-ms} has passed. Failed batches are retried with
+ * backoff; a batch that fails for a non-transient reason (or runs out of retries) is written row by row, so
+ * only the offending messages are lost. In {@code durable} mode {@link #persist} returns only once the
+ * message's batch has committed.
+ */
+@Slf4j
+@Service
+public class ChatMessageWriter {
+
+    private static final String INSERT =
+            "insert into chat_messages (id, request_id, sender_id, body, created_at) values (?, ?, ?, ?, ?)";
+
+    private record Pending(ChatMessage message, CompletableFuture<ChatMessage> done) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long flushMs;
+    private final long offerTimeoutMs;
+    private final int maxRetries;
+    private final boolean durable;
+    private final long ackTimeoutMs;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long lastFlushMs;
+
+    // Stamping and queueing happen under one lock so queue order is timestamp order
+    private final ReentrantLock enqueue = new ReentrantLock();
+    private Instant lastStamp = Instant.EPOCH; // guarded by enqueue
+
+    private Thread flusher;
+    private volatile boolean running;
+
+    public ChatMessageWriter(JdbcTemplate jdbc,
+                             TransactionTemplate tx,
+                             @Value("${chat.persist.queue-capacity:10000}") int capacity,
+                             @Value("${chat.persist.batch-size:100}") int batchSize,
+                             @Value("${chat.persist.flush-ms:50}") long flushMs,
+                             @Value("${chat.persist.offer-timeout-ms:1000}") long offerTimeoutMs,
+                             @Value("${chat.persist.max-retries:5}") int maxRetries,
+                             @Value("${chat.persist.mode:write-behind}") String mode,
+                             @Value("${chat.persist.ack-timeout-ms:5000}") long ackTimeoutMs) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushMs = flushMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.maxRetries = maxRetries;
+        this.durable = "durable".equalsIgnoreCase(mode);
+        this.ackTimeoutMs = ackTimeoutMs;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        flusher = new Thread(this::run, "chat-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(10_000);
+    }
+
+    /** Queue the message; in durable mode also wait until its batch has committed. */
+    public ChatMessage persist(ChatMessage m) {
+        CompletableFuture<ChatMessage> done = submit(m);
+        if (!durable) return m;
+        try {
+            return done.get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Chat message could not be saved.", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out saving chat message.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while saving chat message.", e);
+        }
+    }
+
+    /**
+     * Queue a message for the next batch, stamping its {@code createdAt}. Blocks up to
+     * {@code offer-timeout-ms} when the queue is full.
+     * @throws IllegalStateException if the backlog stays full
+     */
+    public CompletableFuture<ChatMessage> submit(ChatMessage m) {
+        if (m.getId() == null) m.setId(UUID.randomUUID());
+        if (m.getBody() == null) m.setBody("");
+
+        Pending p = new Pending(m, new CompletableFuture<>());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+        try {
+            if (!enqueue.tryLock(offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Chat persistence backlog is full.");
+            }
+            try {
+                // Strictly increasing in queue order, and the flusher commits in queue order: a message
+                // committed later always sorts after any /since cursor handed out before it.
+                // Microseconds are what Postgres stores, which keeps cursors exact.
+                Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+                lastStamp = now.isAfter(lastStamp) ? now : lastStamp.plus(1, ChronoUnit.MICROS);
+                m.setCreatedAt(lastStamp);
+                if (!queue.offer(p, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    throw new IllegalStateException("Chat persistence backlog is full.");
+                }
+            } finally {
+                enqueue.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing chat message.", e);
+        }
+        enqueued.incrementAndGet();
+        return p.done();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("mode", durable ? "durable" : "write-behind");
+        out.put("queue_depth", queue.size());
+        out.put("queue_capacity", queue.size() + queue.remainingCapacity());
+        out.put("enqueued", enqueued.get());
+        out.put("written", written.get());
+        out.put("batches", batches.get());
+        out.put("retries", retries.get());
+        out.put("failed", failed.get());
+        out.put("last_flush_ms", lastFlushMs);
+        return out;
+    }
+
+    // ---------- flusher ----------
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(flushMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                // give a burst up to flush-ms to fill the batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || left <= 0) break;
+                    Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // shutdown: stop waiting, drain whatever is left
+                queue.drainTo(batch);
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        long backoff = 100;
+        for (int attempt = 0; ; attempt++) {
+            long t0 = System.nanoTime();
+            try {
+                insert(batch);
+                lastFlushMs = (System.nanoTime() - t0) / 1_000_000;
+                written.addAndGet(batch.size());
+                batches.incrementAndGet();
+                for (Pending p : batch) p.done().complete(p.message());
+                return;
+            } catch (Exception e) {
+                if (e instanceof NonTransientDataAccessException || attempt >= maxRetries) {
+                    // retrying the same batch cannot help; don't let one bad row take the others with it
+                    log.warn("Chat batch insert failed (attempt {}), writing its {} rows one by one: {}",
+                            attempt + 1, batch.size(), e.toString());
+                    flushRowByRow(batch);
+                    return;
+                }
+                retries.incrementAndGet();
+                log.warn("Chat batch insert failed (attempt {}), retrying in {} ms: {}", attempt + 1, backoff, e.toString());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    running = false; // keep retrying the batch, then exit once the queue is drained
+                }
+                backoff = Math.min(backoff * 2, 5_000);
+            }
+        }
+    }
+
+    private void flushRowByRow(List<Pending> batch) {
+        for (Pending p : batch) {
+            ChatMessage m = p.message();
+            try {
+                insert(List.of(p));
+                written.incrementAndGet();
+                p.done().complete(m);
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.error("Dropping chat message {} of request {}: {}", m.getId(), m.getRequestId(), e.toString());
+                p.done().completeExceptionally(e);
+            }
+        }
+        batches.incrementAndGet();
+    }
+
+    private void insert(List<Pending> rows) {
+        tx.executeWithoutResult(s -> jdbc.batchUpdate(INSERT, rows, rows.size(), (ps, p) -> {
+            ChatMessage m = p.message();
+            ps.setObject(1, m.getId());
+            ps.setObject(2, m.getRequestId());
+            ps.setObject(3, m.getSenderId());
+            ps.setString(4, m.getBody());
+            ps.setTimestamp(5, Timestamp.from(m.getCreatedAt()));
+        }));
+    }
+}
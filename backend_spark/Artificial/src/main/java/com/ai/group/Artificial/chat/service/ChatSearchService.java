@@ -0,0 +1,142 @@
+package com.ai.group.Artificial.chat.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Full-text search over chat message bodies and the initial message of support requests, for admins.
+ * Both tables get a stored, generated {@code tsvector} column ('simple' configuration: no stemming, any
+ * language) with a GIN index, so a query never scans text. Every query word is matched as a prefix
+ * ("refun" finds "refund"); the date range also prunes chat_messages partitions. Archived conversations
+ * are not searched.
+ */
+@Slf4j
+@Service
+@DependsOn("chatMessagePartitions") // chat_messages must already be the partitioned table
+public class ChatSearchService {
+
+    public static final int MAX_SIZE = 100;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    /** {@code kind} is "message" or "request"; {@code messageId} is null for request hits. */
+    public record Hit(String kind, UUID requestId, UUID messageId, UUID senderId, Instant createdAt,
+                      String snippet, double rank) {}
+
+    public record Result(String query, int page, int size, List<Hit> hits) {}
+
+    private final JdbcTemplate jdbc;
+
+    public ChatSearchService(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    void schema() {
+        jdbc.execute("""
+                alter table chat_messages add column if not exists body_tsv tsvector
+                    generated always as (to_tsvector('simple', body)) stored
+                """);
+        jdbc.execute("create index if not exists ix_chatmsg_body_tsv on chat_messages using gin (body_tsv)");
+        jdbc.execute("""
+                alter table admin_requests add column if not exists initial_message_tsv tsvector
+                    generated always as (to_tsvector('simple', coalesce(initial_message, ''))) stored
+                """);
+        jdbc.execute("create index if not exists ix_admin_requests_initial_tsv on admin_requests using gin (initial_message_tsv)");
+    }
+
+    /**
+     * @param participant only conversations where this user is the requester or the accepting admin
+     * @param from inclusive, may be null
+     * @param to exclusive, may be null
+     */
+    public Result search(String text, UUID participant, Instant from, Instant to, int page, int size) {
+        String tsquery = prefixQuery(text);
+        int n = Math.max(1, Math.min(MAX_SIZE, size));
+        int p = Math.max(0, page);
+        if (tsquery == null) return new Result(text, p, n, List.of());
+
+        List<Object> args = new ArrayList<>();
+        args.add(tsquery);
+
+        StringBuilder messages = new StringBuilder("""
+                select 'message' as kind, m.request_id, m.id as message_id, m.sender_id, m.created_at,
+                       m.body as text, ts_rank(m.body_tsv, q.q) as rank
+                  from chat_messages m
+                  join admin_requests r on r.id = m.request_id
+                  cross join q
+                 where m.body_tsv @@ q.q
+                """);
+        filters(messages, args, "m.created_at", participant, from, to);
+
+        StringBuilder requests = new StringBuilder("""
+                select 'request', r.id, null::uuid, r.user_id, r.created_at,
+                       r.initial_message, ts_rank(r.initial_message_tsv, q.q)
+                  from admin_requests r
+                  cross join q
+                 where r.initial_message_tsv @@ q.q
+                """);
+        filters(requests, args, "r.created_at", participant, from, to);
+
+        args.add(n);
+        args.add(p * n);
+        // rank the matches, then build snippets for the requested page only
+        String sql = "with q as (select to_tsquery('simple', ?) as q), hits as ("
+                + messages + " union all " + requests
+                + " order by rank desc, created_at desc limit ? offset ?) "
+                + """
+                select h.kind, h.request_id, h.message_id, h.sender_id, h.created_at, h.rank,
+                       ts_headline('simple', h.text, q.q, 'MaxFragments=1, MaxWords=24, MinWords=8') as snippet
+                  from hits h cross join q
+                 order by h.rank desc, h.created_at desc
+                """;
+
+        List<Hit> hits = jdbc.query(sql, (rs, i) -> new Hit(
+                rs.getString("kind"),
+                rs.getObject("request_id", UUID.class),
+                rs.getObject("message_id", UUID.class),
+                rs.getObject("sender_id", UUID.class),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getString("snippet"),
+                rs.getDouble("rank")), args.toArray());
+        return new Result(text, p, n, hits);
+    }
+
+    private static void filters(StringBuilder sql, List<Object> args, String createdAt,
+                                UUID participant, Instant from, Instant to) {
+        if (participant != null) {
+            sql.append(" and (r.user_id = ? or r.accepted_by = ?)");
+            args.add(participant);
+            args.add(participant);
+        }
+        if (from != null) {
+            sql.append(" and ").append(createdAt).append(" >= ?");
+            args.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            sql.append(" and ").append(createdAt).append(" < ?");
+            args.add(Timestamp.from(to));
+        }
+    }
+
+    /** "Refund lapt" -> "refund:* & lapt:*"; only letters and digits reach to_tsquery. */
+    static String prefixQuery(String text) {
+        if (text == null) return null;
+        List<String> terms = new ArrayList<>();
+        Matcher m = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        while (m.find() && terms.size() < 16) terms.add(m.group() + ":*");
+        return terms.isEmpty() ? null : String.join(" & ", terms);
+    }
+}
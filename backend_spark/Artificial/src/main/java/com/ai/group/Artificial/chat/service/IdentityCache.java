@@ -0,0 +1,106 @@
+package com.ai.group.Artificial.chat.service;
+
+import com.ai.group.Artificial.chat.model.Role;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU caches for {@link UserDirectoryService}: lowercased login (email or name) -> user id, and
+ * user id -> role. Only hits are cached; a user unknown now may be synced a moment later. A reverse index
+ * id -> logins keeps eviction of one user independent of the cache size.
+ */
+final class IdentityCache {
+
+    private final Map<String, UUID> idsByLogin;
+    private final Map<UUID, Set<String>> loginsById = new HashMap<>(); // reverse of idsByLogin
+    private final Map<UUID, Role> roles;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    IdentityCache(int maxSize) {
+        this.idsByLogin = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, UUID> eldest) {
+                if (size() <= maxSize) return false;
+                unlink(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+        this.roles = lru(maxSize);
+    }
+
+    synchronized UUID id(String key) {
+        return count(idsByLogin.get(key));
+    }
+
+    synchronized void putId(String key, UUID id) {
+        UUID old = idsByLogin.put(key, id);
+        if (old != null && !old.equals(id)) unlink(key, old);
+        loginsById.computeIfAbsent(id, k -> new HashSet<>()).add(key);
+    }
+
+    synchronized Role role(UUID id) {
+        return count(roles.get(id));
+    }
+
+    synchronized void putRole(UUID id, Role role) {
+        roles.put(id, role);
+    }
+
+    /** Drop everything known about this user, under any login. */
+    synchronized void evict(UUID id) {
+        drop(id);
+    }
+
+    /** {@link #evict} for many users under one lock. */
+    synchronized void evictAll(Collection<UUID> ids) {
+        ids.forEach(this::drop);
+    }
+
+    synchronized Map<String, Object> stats() {
+        long h = hits.sum(), m = misses.sum();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("logins", idsByLogin.size());
+        out.put("roles", roles.size());
+        out.put("hits", h);
+        out.put("misses", m);
+        out.put("hit_rate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        return out;
+    }
+
+    private void drop(UUID id) {
+        roles.remove(id);
+        Set<String> keys = loginsById.remove(id);
+        if (keys != null) keys.forEach(idsByLogin::remove);
+    }
+
+    private void unlink(String key, UUID id) {
+        Set<String> keys = loginsById.get(id);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) loginsById.remove(id);
+    }
+
+    private <T> T count(T v) {
+        (v != null ? hits : misses).increment();
+        return v;
+    }
+
+    static Optional<String> key(String prefix, String login) {
+        return login == null || login.isBlank() ? Optional.empty() : Optional.of(prefix + login.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static <K, V> Map<K, V> lru(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
@@ -0,0 +1,190 @@
+package com.ai.group.Artificial.chat.service;
+
+import com.ai.group.Artificial.chat.dto.UserSyncDto;
+import com.ai.group.Artificial.chat.model.Role;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * Full or partial directory resync in one call. Reads a JSON array or NDJSON stream of {@link UserSyncDto},
+ * and every {@code chunk-size} entries dedups them by id (highest tokenVersion wins, later wins on ties)
+ * and applies the chunk in its own transaction: one batched {@code INSERT ... ON CONFLICT (id) DO UPDATE}
+ * for upserts, one batched delete for deletions. The update only applies if the incoming tokenVersion is
+ * not older than the stored one, so a user repeated in a later chunk, or a concurrent single-user sync,
+ * never rolls a row back. A chunk that fails as a batch is retried row by row so one bad row (say, an
+ * email already taken) does not cost the rest.
+ */
+@Slf4j
+@Service
+public class UserBulkSyncService {
+
+    private static final String UPSERT = """
+            insert into chat_users (id, email, name, role, token_version, version)
+            values (?, ?, ?, ?, ?, 0)
+            on conflict (id) do update
+               set email = excluded.email,
+                   name = excluded.name,
+                   role = excluded.role,
+                   token_version = excluded.token_version,
+                   version = chat_users.version + 1
+             where chat_users.token_version <= excluded.token_version
+            """;
+
+    private static final int MAX_ERRORS = 20;
+
+    private static final String DELETE = "delete from chat_users where id = ? and token_version <= ?";
+
+    /**
+     * Outcome of one chunk. {@code stale}: rows skipped because a newer tokenVersion is already stored (only
+     * visible where the driver reports per-row counts); {@code errors} lists at most 20 failures.
+     */
+    public record ChunkResult(int chunk, int received, int duplicates, int upserted, int deleted, int stale,
+                              int failed, List<String> errors, long ms) {}
+
+    public record Result(int received, int upserted, int deleted, int stale, int failed, long ms,
+                         List<ChunkResult> chunks) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper mapper;
+    private final UserDirectoryService users;
+    private final int chunkSize;
+
+    public UserBulkSyncService(JdbcTemplate jdbc,
+                               TransactionTemplate tx,
+                               ObjectMapper mapper,
+                               UserDirectoryService users,
+                               @Value("${chat.user-sync.chunk-size:1000}") int chunkSize) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.mapper = mapper;
+        this.users = users;
+        this.chunkSize = chunkSize;
+    }
+
+    public Result sync(InputStream body) throws IOException {
+        long t0 = System.nanoTime();
+        List<ChunkResult> chunks = new ArrayList<>();
+        List<UserSyncDto> buf = new ArrayList<>(chunkSize);
+        // A root-level array is unwrapped; otherwise values are read one after another (NDJSON)
+        try (MappingIterator<UserSyncDto> it = mapper.readerFor(UserSyncDto.class).readValues(body)) {
+            while (it.hasNextValue()) {
+                buf.add(it.nextValue());
+                if (buf.size() == chunkSize) {
+                    chunks.add(apply(chunks.size(), buf));
+                    buf.clear();
+                }
+            }
+        }
+        if (!buf.isEmpty()) chunks.add(apply(chunks.size(), buf));
+
+        int received = 0, upserted = 0, deleted = 0, stale = 0, failed = 0;
+        for (ChunkResult c : chunks) {
+            received += c.received();
+            upserted += c.upserted();
+            deleted += c.deleted();
+            stale += c.stale();
+            failed += c.failed();
+        }
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        log.info("User bulk sync: {} received, {} upserted, {} deleted, {} stale, {} failed in {} ms",
+                received, upserted, deleted, stale, failed, ms);
+        return new Result(received, upserted, deleted, stale, failed, ms, chunks);
+    }
+
+    private ChunkResult apply(int index, List<UserSyncDto> raw) {
+        long t0 = System.nanoTime();
+        List<String> errors = new ArrayList<>();
+
+        Map<UUID, UserSyncDto> latest = new LinkedHashMap<>();
+        int invalid = 0;
+        for (UserSyncDto d : raw) {
+            String problem = validate(d);
+            if (problem != null) {
+                invalid++;
+                errors.add(problem);
+                continue;
+            }
+            latest.merge(d.id(), d, (old, cur) -> cur.tokenVersion() >= old.tokenVersion() ? cur : old);
+        }
+        int duplicates = raw.size() - invalid - latest.size();
+
+        List<UserSyncDto> upserts = new ArrayList<>(), deletes = new ArrayList<>();
+        for (UserSyncDto d : latest.values()) (d.delete() ? deletes : upserts).add(d);
+
+        int upserted = 0, deleted = 0, rowFailures = 0;
+        try {
+            int[] applied = tx.execute(s -> new int[]{batch(false, upserts), batch(true, deletes)});
+            upserted = applied[0];
+            deleted = applied[1];
+        } catch (RuntimeException e) {
+            log.warn("User sync chunk {} failed as a batch, retrying row by row: {}", index, e.toString());
+            for (UserSyncDto d : latest.values()) {
+                try {
+                    int n = tx.execute(s -> batch(d.delete(), List.of(d)));
+                    if (d.delete()) deleted += n; else upserted += n;
+                } catch (RuntimeException rowError) {
+                    rowFailures++;
+                    errors.add(d.id() + ": " + rootMessage(rowError));
+                }
+            }
+        }
+        users.evictAll(latest.keySet());
+
+        int stale = latest.size() - upserted - deleted - rowFailures;
+        return new ChunkResult(index, raw.size(), duplicates, upserted, deleted, stale, invalid + rowFailures,
+                errors.size() > MAX_ERRORS ? errors.subList(0, MAX_ERRORS) : errors,
+                (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    /** @return rows changed (an upsert skipped by the tokenVersion guard changes none) */
+    private int batch(boolean delete, List<UserSyncDto> rows) {
+        if (rows.isEmpty()) return 0;
+        int[][] counts = jdbc.batchUpdate(delete ? DELETE : UPSERT, rows, rows.size(), (ps, d) -> {
+            if (delete) {
+                ps.setObject(1, d.id());
+                ps.setInt(2, d.tokenVersion());
+            } else {
+                ps.setObject(1, d.id());
+                ps.setString(2, d.email());
+                ps.setString(3, d.name());
+                ps.setString(4, d.role());
+                ps.setInt(5, d.tokenVersion());
+            }
+        });
+        int n = 0;
+        for (int[] chunk : counts) {
+            // rewritten multi-row inserts report SUCCESS_NO_INFO per row; count those as applied
+            for (int c : chunk) n += c == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, c);
+        }
+        return n;
+    }
+
+    private static String validate(UserSyncDto d) {
+        if (d == null || d.id() == null) return "entry without id";
+        if (d.delete()) return null;
+        if (d.email() == null || d.name() == null) return d.id() + ": email and name are required";
+        try {
+            Role.valueOf(d.role());
+        } catch (RuntimeException e) {
+            return d.id() + ": unknown role " + d.role();
+        }
+        return null;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable t = e;
+        while (t.getCause() != null) t = t.getCause();
+        return t.getMessage();
+    }
+}
@@ -4,19 +4,45 @@ import com.ai.group.Artificial.chat.dto.UserSyncDto;
 import com.ai.group.Artificial.chat.model.ChatUser;
 import com.ai.group.Artificial.chat.model.Role;
 import com.ai.group.Artificial.chat.repository.ChatUserRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
+/**
+ * Users synced from user-management, and the one place HTTP and STOMP entry points turn a caller into a
+ * user id. UUID claims are read straight from the token; email/username fallbacks and role lookups go
+ * through a bounded cache that every sync upsert or delete invalidates. Lookups join a caller's transaction
+ * but never start one, so a cache hit costs no pool connection; a miss reads through the repository's own.
+ */
 @Service
-@RequiredArgsConstructor
 @Transactional
 public class UserDirectoryService {
 
+    // Claims that may carry the user id, in order of preference
+    private static final List<String> ID_CLAIMS = List.of("id", "uid", "userId", "user_id", "sub");
+
     private final ChatUserRepository repo;
+    private final IdentityCache cache;
+
+    public UserDirectoryService(ChatUserRepository repo,
+                                @Value("${chat.identity.cache-size:10000}") int cacheSize) {
+        this.repo = repo;
+        this.cache = new IdentityCache(cacheSize);
+    }
 
     public void upsert(UserSyncDto dto) {
         if (dto.delete()) {
@@ -42,22 +68,109 @@ public class UserDirectoryService {
                     .build();
             repo.save(created);
         });
+        // email, name, role or tokenVersion may have changed
+        evict(dto.id());
     }
 
     public void delete(UUID id) {
         repo.deleteById(id);
+        evict(id);
     }
-    @Transactional(readOnly = true)
+
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<UUID> findIdByEmail(String email) {
-        if (email == null) return Optional.empty();
-        return repo.findByEmailIgnoreCase(email).map(ChatUser::getId);
+        return cached(IdentityCache.key("email:", email), () -> repo.findByEmailIgnoreCase(email));
     }
 
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<UUID> findIdByUsernameOrEmail(String s) {
-        if (s == null) return Optional.empty();
-        return repo.findByEmailIgnoreCase(s).map(ChatUser::getId)
-                .or(() -> repo.findByNameIgnoreCase(s).map(ChatUser::getId));
+        return cached(IdentityCache.key("login:", s),
+                () -> repo.findByEmailIgnoreCase(s).or(() -> repo.findByNameIgnoreCase(s)));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<Role> findRole(UUID id) {
+        if (id == null) return Optional.empty();
+        Role role = cache.role(id);
+        if (role == null) {
+            role = repo.findById(id).map(ChatUser::getRole).orElse(null);
+            if (role == null) return Optional.empty();
+            cache.putRole(id, role);
+        }
+        return Optional.of(role);
+    }
+
+    /** User id for a decoded token: UUID claims first, then the email claim, then the subject as a login. */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UUID> resolve(Jwt jwt) {
+        for (String claim : ID_CLAIMS) {
+            UUID u = tryUuid(jwt.getClaimAsString(claim));
+            if (u != null) return Optional.of(u);
+        }
+        Optional<UUID> byEmail = findIdByEmail(jwt.getClaimAsString("email"));
+        if (byEmail.isPresent()) return byEmail;
+        return findIdByUsernameOrEmail(jwt.getSubject());
+    }
+
+    /** Server-side identity of an HTTP caller: UUID claims first, then email/username lookup. */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UUID> resolveUserId(Authentication auth) {
+        if (auth == null || !auth.isAuthenticated()) return Optional.empty();
+
+        Object principal = auth.getPrincipal();
+
+        if (principal instanceof ChatUser cu) {
+            return Optional.ofNullable(cu.getId());
+        }
+
+        if (auth instanceof JwtAuthenticationToken jwtAuth) {
+            return resolve(jwtAuth.getToken());
+        }
+
+        if (principal instanceof UserDetails ud) {
+            return findIdByUsernameOrEmail(ud.getUsername());
+        }
+
+        if (principal instanceof String s) {
+            return findIdByUsernameOrEmail(s);
+        }
+
+        return Optional.empty();
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> identityCacheStats() {
+        return cache.stats();
+    }
+
+    private Optional<UUID> cached(Optional<String> key, Supplier<Optional<ChatUser>> load) {
+        if (key.isEmpty()) return Optional.empty();
+        UUID id = cache.id(key.get());
+        if (id != null) return Optional.of(id);
+        Optional<UUID> found = load.get().map(ChatUser::getId);
+        found.ifPresent(u -> cache.putId(key.get(), u));
+        return found;
+    }
+
+    // Now, and again after commit in case a concurrent lookup re-cached the old row meanwhile
+    void evict(UUID id) {
+        cache.evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCommit() { cache.evict(id); }
+            });
+        }
+    }
+
+    /** After a bulk sync has committed: one cache lock for the whole chunk, no transaction. */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void evictAll(Collection<UUID> ids) {
+        cache.evictAll(ids);
+    }
+
+    private static UUID tryUuid(String s) {
+        try { return s == null ? null : UUID.fromString(s); }
+        catch (Exception ignore) { return null; }
     }
 
     /** Count users in the database. */
@@ -0,0 +1,131 @@
+package com.ai.group.Artificial.chat.ws;
+
+import com.ai.group.Artificial.admin.service.SupportDispatcher;
+import com.ai.group.Artificial.chat.service.ChatArchiver;
+import com.ai.group.Artificial.chat.service.ChatEventCoalescer;
+import com.ai.group.Artificial.chat.service.ChatMessageWriter;
+import com.ai.group.Artificial.chat.service.UserDirectoryService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Gauges for chat state that is already tracked elsewhere: STOMP sessions and, in relay mode, broker
+ * connections from {@link WebSocketMessageBrokerStats}, queue depth and active threads of the inbound and
+ * outbound channel executors (absent when a channel runs on virtual threads), and the numeric entries of
+ * the {@code /api/chat/stats} sections as {@code chat.<section>.<key>} (sections have fixed keys, read once
+ * at bind time). Only in-memory numbers are bound: every pod is scraped every interval, so nothing here may
+ * query the database or start a transaction; the awaiting count stays on the admin-only stats endpoint.
+ * <p>
+ * The broker channel has no executor on purpose: publishing runs on the sending thread, which keeps a
+ * session's messages in order. Each stats section is read once per scrape, not once per key.
+ */
+@Component
+public class ChatMeterBinder implements MeterBinder {
+
+    // well under any scrape interval, well over the time one scrape takes
+    private static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final WebSocketMessageBrokerStats brokerStats;
+    private final Map<String, ExecutorSubscribableChannel> channels;
+    private final Map<String, Supplier<Map<String, Object>>> sections;
+
+    public ChatMeterBinder(WebSocketMessageBrokerStats brokerStats,
+                           @Qualifier("clientInboundChannel") ExecutorSubscribableChannel inbound,
+                           @Qualifier("clientOutboundChannel") ExecutorSubscribableChannel outbound,
+                           ChatMessageWriter writer,
+                           PresenceRegistry presence,
+                           UserDirectoryService users,
+                           ChatEventCoalescer events,
+                           ChatArchiver archiver,
+                           SupportDispatcher dispatcher,
+                           SlowConsumerGuard slowConsumers) {
+        this.brokerStats = brokerStats;
+        this.channels = Map.of("inbound", inbound, "outbound", outbound);
+        this.sections = Map.of(
+                "persistence", writer::stats,
+                "presence", presence::stats,
+                "identity_cache", users::identityCacheStats,
+                "events", events::stats,
+                "archive", archiver::stats,
+                "dispatch", dispatcher::counters, // stats() adds a DB COUNT: left to /api/chat/stats
+                "websocket", slowConsumers::stats);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("chat.ws.sessions", brokerStats, s -> s.getWebSocketSessionStats().getTotalSessions())
+                .description("Open WebSocket/SockJS sessions")
+                .register(registry);
+        Gauge.builder("chat.ws.stomp.connected", brokerStats, s -> {
+                    var stomp = s.getStompSubProtocolStats();
+                    return stomp.getTotalConnected() - stomp.getTotalDisconnect();
+                })
+                .description("STOMP sessions connected and not yet disconnected")
+                .register(registry);
+
+        // null with the simple broker
+        if (brokerStats.getStompBrokerRelayStats() != null) {
+            Gauge.builder("chat.broker.relay.connected", brokerStats, s -> {
+                        var relay = s.getStompBrokerRelayStats();
+                        return relay.getTotalConnected() - relay.getTotalDisconnect();
+                    })
+                    .description("Sessions with an open connection to the STOMP broker, system session included")
+                    .register(registry);
+            Gauge.builder("chat.broker.relay.handlers", brokerStats,
+                            s -> s.getStompBrokerRelayStats().getTotalHandlers())
+                    .description("Relay connection handlers, one per session plus the system session")
+                    .register(registry);
+        }
+
+        channels.forEach((name, channel) -> {
+            if (!(channel.getExecutor() instanceof ThreadPoolTaskExecutor pool)) return;
+            Gauge.builder("chat.ws.channel.queued", pool, ThreadPoolTaskExecutor::getQueueSize)
+                    .description("Messages waiting for a channel thread")
+                    .tag("channel", name)
+                    .register(registry);
+            Gauge.builder("chat.ws.channel.active", pool, ThreadPoolTaskExecutor::getActiveCount)
+                    .tag("channel", name)
+                    .register(registry);
+        });
+
+        sections.forEach((section, stats) -> {
+            Snapshot snapshot = new Snapshot(stats);
+            snapshot.current().forEach((key, value) -> {
+                if (!(value instanceof Number)) return;
+                Gauge.builder("chat." + section.replace('_', '.') + "." + key.replace('_', '.'),
+                                snapshot, s -> s.current().get(key) instanceof Number n ? n.doubleValue() : Double.NaN)
+                        .register(registry);
+            });
+        });
+    }
+
+    /** One stats map per scrape: the gauges of a section share it for {@link #MAX_AGE_NANOS}. */
+    private static final class Snapshot {
+        private final Supplier<Map<String, Object>> stats;
+        private Map<String, Object> last;
+        private long takenAt;
+
+        Snapshot(Supplier<Map<String, Object>> stats) {
+            this.stats = stats;
+        }
+
+        synchronized Map<String, Object> current() {
+            long now = System.nanoTime();
+            if (last == null || now - takenAt > MAX_AGE_NANOS) {
+                last = stats.get();
+                takenAt = now;
+            }
+            return last;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.ai.group.Artificial.chat.ws;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Micrometer meters for chat traffic, exported on {@code /actuator/prometheus}.
+ * <ul>
+ *   <li>{@code chat.ws.messages{direction,command}}: STOMP frames in from clients and out to them</li>
+ *   <li>{@code chat.broker.published{destination}} / {@code chat.ws.delivered{destination}}: messages handed
+ *       to the broker and frames it produced for sessions; their ratio is the fan-out per destination</li>
+ *   <li>{@code chat.send{phase}}: {@code /app/chat/{id}} split into membership check, persist and deliver</li>
+ *   <li>{@code chat.ws.disconnects{code}}: WebSocket close codes (4500 / "not reliable" = slow consumer)</li>
+ * </ul>
+ * Destinations and close codes come from clients, so tags are limited to fixed allow-lists: destinations
+ * are matched with ids replaced by {@code {id}} and user-session suffixes stripped against the ones this
+ * service sends to, and everything else is tagged {@code other}.
+ */
+@Component
+public class ChatMetrics {
+
+    private static final Pattern UUID_SEGMENT =
+            Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern USER_SESSION = Pattern.compile("-user[^/]+$");
+
+    private static final Set<String> DESTINATIONS = Set.of(
+            "/queue/chat/{id}",
+            "/queue/chat/{id}/events",
+            "/queue/support/assigned",
+            "/topic/support/queue",
+            "/topic/support/requests/{id}");
+
+    // RFC 6455 codes plus Spring's SESSION_NOT_RELIABLE (4500)
+    private static final Set<Integer> CLOSE_CODES = Set.of(1000, 1001, 1002, 1003, 1005, 1006, 1007, 1008,
+            1009, 1010, 1011, 1012, 1013, 4500);
+
+    private final MeterRegistry registry;
+    private final Timer membership;
+    private final Timer persist;
+    private final Timer deliver;
+
+    private final ChannelInterceptor inbound = new Direction("inbound");
+    private final ChannelInterceptor outbound = new Direction("outbound") {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            super.preSend(message, channel);
+            if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+                count("chat.ws.delivered", SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+            }
+            return message;
+        }
+    };
+    private final ChannelInterceptor broker = new ChannelInterceptor() {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            String dest = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            // user destinations come back resolved per session; the original send was counted already
+            if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE
+                    && dest != null && !USER_SESSION.matcher(dest).find()) {
+                count("chat.broker.published", dest);
+            }
+            return message;
+        }
+    };
+
+    public ChatMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.membership = sendTimer("membership");
+        this.persist = sendTimer("persist");
+        this.deliver = sendTimer("deliver");
+    }
+
+    /** Register on the client-inbound channel. */
+    public ChannelInterceptor inbound() {
+        return inbound;
+    }
+
+    /** Register on the client-outbound channel. */
+    public ChannelInterceptor outbound() {
+        return outbound;
+    }
+
+    /** Register on the broker channel. */
+    public ChannelInterceptor broker() {
+        return broker;
+    }
+
+    public void recordSend(long membershipNanos, long persistNanos, long deliverNanos) {
+        membership.record(membershipNanos, TimeUnit.NANOSECONDS);
+        persist.record(persistNanos, TimeUnit.NANOSECONDS);
+        deliver.record(deliverNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void disconnected(int closeCode) {
+        Counter.builder("chat.ws.disconnects")
+                .description("WebSocket sessions closed, by close code")
+                .tag("code", CLOSE_CODES.contains(closeCode) ? String.valueOf(closeCode) : "other")
+                .register(registry)
+                .increment();
+    }
+
+    static String destination(String dest) {
+        if (dest == null) return "none";
+        String d = dest.startsWith("/user/") ? dest.substring("/user".length()) : dest;
+        d = USER_SESSION.matcher(d).replaceFirst("");
+        d = UUID_SEGMENT.matcher(d).replaceAll("{id}");
+        return DESTINATIONS.contains(d) ? d : "other";
+    }
+
+    private Timer sendTimer(String phase) {
+        return Timer.builder("chat.send")
+                .description("Handling of a chat message sent to /app/chat/{requestId}")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private void count(String name, String dest) {
+        registry.counter(name, "destination", destination(dest)).increment();
+    }
+
+    private class Direction implements ChannelInterceptor {
+        private final String direction;
+
+        Direction(String direction) {
+            this.direction = direction;
+        }
+
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            StompCommand cmd = StompHeaderAccessor.getCommand(message.getHeaders());
+            String command = cmd != null ? cmd.name()
+                    : String.valueOf(SimpMessageHeaderAccessor.getMessageType(message.getHeaders()));
+            registry.counter("chat.ws.messages", "direction", direction, "command", command).increment();
+            return message;
+        }
+    }
+}
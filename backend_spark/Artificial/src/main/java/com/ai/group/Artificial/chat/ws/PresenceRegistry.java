@@ -0,0 +1,143 @@
+// src/main/java/com/ai/group/Artificial/chat/ws/PresenceRegistry.java
+package com.ai.group.Artificial.chat.ws;
+
+import com.ai.group.Artificial.chat.model.Role;
+import com.ai.group.Artificial.chat.service.UserDirectoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Who is connected to this node's /ws endpoint: STOMP sessions per user and the support requests each
+ * session is subscribed to (its chat queue or the request's event topic). Kept up to date from
+ * connect/subscribe/unsubscribe events; {@link WsPresenceListener} removes sessions on disconnect.
+ * With the broker relay every pod tracks only its own sessions.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceRegistry {
+
+    private static final Pattern REQUEST_DEST =
+            Pattern.compile("^(?:/user/queue/chat/|/topic/support/requests/)([0-9a-fA-F-]{36})$");
+
+    private final UserDirectoryService users;
+
+    private static final class Session {
+        final UUID userId;
+        final boolean admin;
+        final Map<String, UUID> subscriptions = new HashMap<>(); // STOMP subscription id -> request id
+
+        Session(UUID userId, boolean admin) {
+            this.userId = userId;
+            this.admin = admin;
+        }
+
+        boolean watches(UUID requestId) {
+            return subscriptions.containsValue(requestId);
+        }
+    }
+
+    /** What a closed session leaves behind: the requests its user no longer watches from any session. */
+    public record Departure(UUID userId, Set<UUID> requests) {}
+
+    // Guarded by this
+    private final Map<String, Session> sessions = new HashMap<>();
+    private final Map<UUID, Set<String>> sessionsByUser = new HashMap<>();
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        UUID uid = principalId(event.getUser());
+        if (uid == null) return;
+        String sessionId = StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        // One primary-key lookup per connection, outside the lock
+        boolean admin = users.findRole(uid).map(r -> r == Role.ADMIN).orElse(false);
+        synchronized (this) {
+            sessions.put(sessionId, new Session(uid, admin));
+            sessionsByUser.computeIfAbsent(uid, k -> new HashSet<>()).add(sessionId);
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor acc = StompHeaderAccessor.wrap(event.getMessage());
+        UUID requestId = requestId(acc.getDestination());
+        if (requestId == null) return;
+        synchronized (this) {
+            Session s = sessions.get(acc.getSessionId());
+            if (s != null) s.subscriptions.put(acc.getSubscriptionId(), requestId);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor acc = StompHeaderAccessor.wrap(event.getMessage());
+        synchronized (this) {
+            Session s = sessions.get(acc.getSessionId());
+            if (s != null) s.subscriptions.remove(acc.getSubscriptionId());
+        }
+    }
+
+    /** Forget a session; null if it was never registered (e.g. anonymous). */
+    public synchronized Departure remove(String sessionId) {
+        Session s = sessions.remove(sessionId);
+        if (s == null) return null;
+
+        Set<String> mine = sessionsByUser.get(s.userId);
+        if (mine != null) {
+            mine.remove(sessionId);
+            if (mine.isEmpty()) sessionsByUser.remove(s.userId);
+        }
+
+        Set<UUID> left = new HashSet<>(s.subscriptions.values());
+        if (mine != null) {
+            for (String other : mine) {
+                Session o = sessions.get(other);
+                if (o != null) left.removeIf(o::watches);
+            }
+        }
+        return new Departure(s.userId, left);
+    }
+
+    public synchronized boolean isOnline(UUID userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    /** Admins with at least one open session on this node. */
+    public synchronized Set<UUID> onlineAdmins() {
+        Set<UUID> out = new HashSet<>();
+        for (Session s : sessions.values()) {
+            if (s.admin) out.add(s.userId);
+        }
+        return out;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("sessions", sessions.size());
+        out.put("online_users", sessionsByUser.size());
+        out.put("online_admins", onlineAdmins().size());
+        return out;
+    }
+
+    static UUID principalId(Principal p) {
+        if (p == null) return null;
+        if (p instanceof WsPrincipal wp) return wp.id();
+        try { return UUID.fromString(p.getName()); } catch (Exception e) { return null; }
+    }
+
+    private static UUID requestId(String destination) {
+        if (destination == null) return null;
+        Matcher m = REQUEST_DEST.matcher(destination);
+        if (!m.matches()) return null;
+        try { return UUID.fromString(m.group(1)); } catch (Exception e) { return null; }
+    }
+}
@@ -0,0 +1,139 @@
+// src/main/java/com/ai/group/Artificial/chat/ws/SlowConsumerGuard.java
+package com.ai.group.Artificial.chat.ws;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-session view of outbound backlog. Every frame that leaves the client-outbound channel for a
+ * session is counted until it has actually been written to that session's socket. A session with more
+ * than {@code slow.frames} unwritten frames, or one socket write stuck longer than {@code slow.send-ms},
+ * is slow: frames sent with the {@link #EPHEMERAL} header (typing, read receipts) are dropped for it.
+ * Everything else is queued, and Spring's own per-session byte/time limits ({@code send-buffer-limit-bytes},
+ * {@code send-time-limit-ms}) disconnect the session once those are exceeded.
+ */
+@Slf4j
+@Component
+public class SlowConsumerGuard implements ChannelInterceptor {
+
+    /** Native header marking a frame that may be dropped for slow consumers. */
+    public static final String EPHEMERAL = "ephemeral";
+
+    private static final class Backlog {
+        final AtomicInteger frames = new AtomicInteger();
+        volatile long sendStartedNanos; // 0 = no write in progress
+    }
+
+    private final int slowFrames;
+    private final long slowSendNanos;
+    private final Map<String, Backlog> sessions = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder slowDisconnects = new LongAdder();
+
+    public SlowConsumerGuard(@Value("${chat.ws.slow.frames:50}") int slowFrames,
+                             @Value("${chat.ws.slow.send-ms:2000}") long slowSendMs) {
+        this.slowFrames = slowFrames;
+        this.slowSendNanos = TimeUnit.MILLISECONDS.toNanos(slowSendMs);
+    }
+
+    // ---------- client-outbound channel ----------
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        Backlog b = sessionId == null ? null : sessions.get(sessionId);
+        if (b == null) return message;
+
+        SimpMessageHeaderAccessor acc = SimpMessageHeaderAccessor.wrap(message);
+        if ("true".equals(acc.getFirstNativeHeader(EPHEMERAL)) && isSlow(b)) {
+            dropped.increment();
+            return null;
+        }
+        b.frames.incrementAndGet();
+        return message;
+    }
+
+    // ---------- WebSocket transport ----------
+
+    /** Wraps each raw session so completed socket writes are seen; register via the transport. */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                Backlog b = new Backlog();
+                sessions.put(session.getId(), b);
+                super.afterConnectionEstablished(new TimedSession(session, b));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+                sessions.remove(session.getId());
+                if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(status)) {
+                    slowDisconnects.increment();
+                    log.info("Disconnected slow WebSocket consumer {}", session.getId());
+                }
+                super.afterConnectionClosed(session, status);
+            }
+        };
+    }
+
+    private static final class TimedSession extends WebSocketSessionDecorator {
+        private final Backlog backlog;
+
+        TimedSession(WebSocketSession delegate, Backlog backlog) {
+            super(delegate);
+            this.backlog = backlog;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            backlog.sendStartedNanos = System.nanoTime();
+            try {
+                super.sendMessage(message);
+            } finally {
+                backlog.sendStartedNanos = 0;
+                // heartbeats are written by the session itself and never passed the channel
+                if (message.getPayloadLength() > 1) backlog.frames.updateAndGet(n -> Math.max(0, n - 1));
+            }
+        }
+    }
+
+    private boolean isSlow(Backlog b) {
+        long started = b.sendStartedNanos;
+        return b.frames.get() > slowFrames || (started != 0 && System.nanoTime() - started > slowSendNanos);
+    }
+
+    public Map<String, Object> stats() {
+        int maxDepth = 0, slow = 0;
+        for (Backlog b : sessions.values()) {
+            maxDepth = Math.max(maxDepth, b.frames.get());
+            if (isSlow(b)) slow++;
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("sessions", sessions.size());
+        out.put("slow_sessions", slow);
+        out.put("max_queue_depth", maxDepth);
+        out.put("dropped_frames", dropped.sum());
+        out.put("slow_disconnects", slowDisconnects.sum());
+        return out;
+    }
+}
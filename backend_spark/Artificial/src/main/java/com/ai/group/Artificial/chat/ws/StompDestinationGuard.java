@@ -0,0 +1,59 @@
+// src/main/java/com/ai/group/Artificial/chat/ws/StompDestinationGuard.java
+package com.ai.group.Artificial.chat.ws;
+
+import com.ai.group.Artificial.admin.service.SupportQueueFeed;
+import com.ai.group.Artificial.chat.model.Role;
+import com.ai.group.Artificial.chat.service.UserDirectoryService;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Client-inbound checks on STOMP destinations, after the JWT interceptor has set the principal.
+ * Clients SEND only to {@code /app}: frames aimed at the broker prefixes ({@code /topic}, {@code /queue},
+ * {@code /user}) would be published to other subscribers as if the server had sent them. The support
+ * queue topic and its {@code /app} snapshot are for admins only; both use {@link #canWatchSupportQueue}.
+ * A rejected frame becomes a STOMP ERROR for the sender.
+ */
+@Component
+public class StompDestinationGuard implements ChannelInterceptor {
+
+    private final UserDirectoryService users;
+
+    public StompDestinationGuard(UserDirectoryService users) {
+        this.users = users;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompCommand cmd = StompHeaderAccessor.getCommand(message.getHeaders());
+        if (cmd == null) return message;
+        String dest = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+
+        if (cmd == StompCommand.SEND && !under(dest, "/app")) {
+            throw new AccessDeniedException("Clients may only send to /app destinations.");
+        }
+        if (cmd == StompCommand.SUBSCRIBE && SupportQueueFeed.TOPIC.equals(dest) && !canWatchSupportQueue(user)) {
+            throw new AccessDeniedException("Only admins can watch the support queue.");
+        }
+        return message;
+    }
+
+    /** Admins only: the queue carries every awaiting request's user id and first message. */
+    public boolean canWatchSupportQueue(Principal principal) {
+        return principal instanceof WsPrincipal wp
+                && users.findRole(wp.id()).filter(r -> r == Role.ADMIN).isPresent();
+    }
+
+    private static boolean under(String dest, String prefix) {
+        return dest != null && (dest.equals(prefix) || dest.startsWith(prefix + "/"));
+    }
+}
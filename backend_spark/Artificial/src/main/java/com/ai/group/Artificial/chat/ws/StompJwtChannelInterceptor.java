@@ -46,22 +46,8 @@ public class StompJwtChannelInterceptor implements ChannelInterceptor {
                 try {
                     Jwt jwt = jwtDecoder.decode(token);
 
-                    // Prefer UUID claims if present
-                    UUID id = tryUuid(claim(jwt, "id"));
-                    if (id == null) id = tryUuid(claim(jwt, "sub"));
-                    if (id == null) id = tryUuid(claim(jwt, "userId"));
-                    if (id == null) id = tryUuid(claim(jwt, "uid"));
-
+                    UUID id = users.resolve(jwt).orElse(null);
                     String email = claim(jwt, "email");
-                    String subject = claim(jwt, "sub");
-
-                    // If still no UUID, resolve from DB by email / subject
-                    if (id == null && StringUtils.hasText(email)) {
-                        id = users.findIdByEmail(email).orElse(null);
-                    }
-                    if (id == null && StringUtils.hasText(subject)) {
-                        id = users.findIdByUsernameOrEmail(subject).orElse(null);
-                    }
 
                     // Only attach a Principal if we have a UUID – user destinations depend on it
                     if (id != null) {
@@ -86,9 +72,4 @@ public class StompJwtChannelInterceptor implements ChannelInterceptor {
         Object v = jwt.getClaims().get(name);
         return v != null ? v.toString() : null;
     }
-
-    private static UUID tryUuid(String s) {
-        if (!StringUtils.hasText(s)) return null;
-        try { return UUID.fromString(s); } catch (Exception e) { return null; }
-    }
 }
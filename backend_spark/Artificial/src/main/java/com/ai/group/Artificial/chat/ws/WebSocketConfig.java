@@ -3,6 +3,7 @@ package com.ai.group.Artificial.chat.ws;
 
 import com.ai.group.Artificial.security.stomp.JwtStompAuthChannelInterceptor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
@@ -14,6 +15,44 @@ import org.springframework.web.socket.config.annotation.*;
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtStompAuthChannelInterceptor jwtStompInterceptor;
+    private final StompDestinationGuard destinations;
+    private final SlowConsumerGuard slowConsumers;
+    private final ChatMetrics metrics;
+
+    // simple = in-memory broker (single node); relay = external STOMP broker shared by every pod
+    @Value("${chat.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${chat.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${chat.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${chat.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${chat.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${chat.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    // Per-session outbound limits: a session over either one is disconnected
+    @Value("${chat.ws.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${chat.ws.send-buffer-limit-bytes:262144}")
+    private int sendBufferLimitBytes;
+
+    @Value("${chat.ws.message-size-limit-bytes:65536}")
+    private int messageSizeLimitBytes;
+
+    @Value("${chat.ws.outbound.pool-size:8}")
+    private int outboundPoolSize;
+
+    @Value("${chat.ws.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -25,13 +64,49 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/app");
-        registry.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            var relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+            if (!relayVirtualHost.isBlank()) relay.setVirtualHost(relayVirtualHost);
+            // convertAndSendToUser for a session on another pod: unresolved user destinations are
+            // re-broadcast through the broker, and every node shares its local sessions in the user registry
+            relay.setUserDestinationBroadcast("/topic/simp-unresolved-user");
+            relay.setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            registry.enableSimpleBroker("/topic", "/queue");
+        }
         registry.setUserDestinationPrefix("/user");
+        // no executor: publishing stays on the sending thread, so per-session order holds
+        registry.configureBrokerChannel().interceptors(metrics.broker());
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        // Register ONLY the interceptor above
-        registration.interceptors(jwtStompInterceptor);
+        // Auth first, then destination checks; metrics count only what got past both
+        registration.interceptors(jwtStompInterceptor, destinations, metrics.inbound());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Sized pool; a blocked socket write holds one thread at most until send-time-limit-ms
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize)
+                .maxPoolSize(outboundPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+        // frames dropped for slow consumers never reach the metrics
+        registration.interceptors(slowConsumers, metrics.outbound());
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferLimitBytes)
+                .setMessageSizeLimit(messageSizeLimitBytes)
+                .addDecoratorFactory(slowConsumers::decorate);
     }
 }
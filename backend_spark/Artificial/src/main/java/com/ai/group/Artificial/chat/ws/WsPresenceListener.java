@@ -1,57 +1,60 @@
 // src/main/java/com/ai/group/Artificial/chat/ws/WsPresenceListener.java
 package com.ai.group.Artificial.chat.ws;
 
-import com.ai.group.Artificial.admin.model.AdminRequest;
-import com.ai.group.Artificial.admin.service.AdminRequestService;
+import com.ai.group.Artificial.admin.model.AdminRequestStatus;
+import com.ai.group.Artificial.admin.service.ChatMembershipRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
-import java.security.Principal;
 import java.time.Instant;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class WsPresenceListener {
 
     private final SimpMessagingTemplate simp;
-    private final AdminRequestService adminRequests;
+    private final PresenceRegistry presence;
+    private final ChatMembershipRegistry membership;
+    private final ChatMetrics metrics;
 
     @EventListener
     public void onDisconnect(SessionDisconnectEvent event) {
-        Principal p = event.getUser();
-        UUID uid = principalId(p);
-        if (uid == null) return;
+        metrics.disconnected(event.getCloseStatus().getCode());
 
-        // All active (accepted/not closed) requests where this user participates
-        List<AdminRequest> open = adminRequests.findOpenByParticipant(uid);
+        // Only requests this session was subscribed to and no other session of the user still is;
+        // users without open chats cost nothing here
+        PresenceRegistry.Departure gone = presence.remove(event.getSessionId());
+        if (gone == null) return;
+        UUID uid = gone.userId();
 
-        for (AdminRequest req : open) {
-            String who;
-            if (uid.equals(req.getAcceptedBy())) who = "ADMIN";
-            else if (uid.equals(req.getUserId())) who = "USER";
-            else who = "UNKNOWN";
+        for (UUID requestId : gone.requests()) {
+            ChatMembershipRegistry.Members members;
+            try {
+                members = membership.members(requestId); // cached for accepted chats
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (members.status() != AdminRequestStatus.ACCEPTED || !members.contains(uid)) continue;
+
+            String who = uid.equals(members.adminId()) ? "ADMIN" : "USER";
 
             Map<String, Object> payload = Map.of(
                     "type", "DISCONNECTED",
                     "who", who,
-                    "requestId", req.getId().toString(),
+                    "requestId", requestId.toString(),
                     "at", Instant.now().toEpochMilli()
             );
 
             // Your clients already listen to this topic for ACCEPT/CLOSE;
             // they'll now receive DISCONNECTED as well.
-            simp.convertAndSend("/topic/support/requests/" + req.getId(), payload);
+            simp.convertAndSend("/topic/support/requests/" + requestId, payload);
         }
     }
-
-    private static UUID principalId(Principal p) {
-        if (p instanceof WsPrincipal wp) return wp.id();
-        try { return UUID.fromString(p.getName()); } catch (Exception e) { return null; }
-    }
 }
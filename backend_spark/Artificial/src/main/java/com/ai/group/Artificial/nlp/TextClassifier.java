@@ -148,7 +148,15 @@ public class TextClassifier {
 
     // ===== public API
 
+    /** Intent code plus what it needs downstream: category code for HELP_CATEGORY, brand for HELP_REQUEST_BRAND. */
+    public record Intent(int code, String category, String brand) {}
+
     public ClassificationResponse classify(UUID userId, String raw) {
+        return respond(userId, raw, resolve(raw));
+    }
+
+    /** Run the intent (and, if needed, category) heads without any side effects. */
+    public Intent resolve(String raw) {
         String text = normalize(raw);
 
         // --- INTENT ---
@@ -159,7 +167,7 @@ public class TextClassifier {
             intentCode = rules.routeIntent(text);
         }
 
-        // --- CATEGORY (only if needed) ---
+        // --- CATEGORY / BRAND (only if needed) ---
         if (intentCode == HELP_CATEGORY) {
             String catCode;
             if (categoryHeadUsable) {
@@ -167,6 +175,19 @@ public class TextClassifier {
             } else {
                 catCode = rules.routeCategory(text);
             }
+            return new Intent(intentCode, catCode, null);
+        }
+        if (intentCode == HELP_REQUEST_BRAND) {
+            return new Intent(intentCode, null, rules.findBrand(text));
+        }
+        return new Intent(intentCode, null, null);
+    }
+
+    /** Message, link and side effects (admin request) for an already resolved intent. */
+    public ClassificationResponse respond(UUID userId, String raw, Intent intent) {
+        int intentCode = intent.code();
+        if (intentCode == HELP_CATEGORY) {
+            String catCode = intent.category();
             CatInfo ci = catByCode.getOrDefault(catCode, new CatInfo(catCode, catCode, null, List.of()));
             String link = "/catalog?category=" + ci.code;   // override link as requested
             String msg  = "We have that category of products click the button below to access the " + ci.label;
@@ -530,10 +551,15 @@ public class TextClassifier {
         }
 
         private boolean containsBrand(String t) {
+            return findBrand(t) != null;
+        }
+
+        String findBrand(String text) {
+            String t = normalize(text);
             for (String b : brands) {
-                if (Pattern.compile("\\b" + Pattern.quote(b) + "\\b").matcher(t).find()) return true;
+                if (Pattern.compile("\\b" + Pattern.quote(b) + "\\b").matcher(t).find()) return b;
             }
-            return false;
+            return null;
         }
 
         private static boolean any(List<Pattern> ps, String s) {
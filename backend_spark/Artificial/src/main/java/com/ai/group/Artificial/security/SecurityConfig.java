@@ -25,7 +25,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 @Configuration
 public class SecurityConfig {
 
-    // Chain #1 — ONLY for internal sync; uses static bearer secret and grants ROLE_INTERNAL
+    // Chain #1 — ONLY for internal sync (users, catalog) and the Prometheus scrape; uses static bearer secret and grants ROLE_INTERNAL
     @Bean
     @Order(1)
     public SecurityFilterChain internalSyncChain(
@@ -33,7 +33,7 @@ public class SecurityConfig {
             @Value("${sync.shared-secret}") String staticSecret
     ) throws Exception {
         http
-                .securityMatcher("/internal/sync/users/**")
+                .securityMatcher("/internal/sync/users/**", "/internal/sync/catalog/**", "/actuator/prometheus")
                 .csrf(csrf -> csrf.disable())
                 .addFilterBefore(
                         new com.ai.group.Artificial.security.StaticBearerTokenAuthenticationFilter(staticSecret),
@@ -59,6 +59,7 @@ public class SecurityConfig {
                         // voice endpoints
                         .requestMatchers(HttpMethod.POST, "/api/voice/stt").permitAll()
                         .requestMatchers(HttpMethod.POST, "/voice/stt").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/voice/search").permitAll()
 
                         // SockJS/WebSocket handshake + info
                         .requestMatchers("/ws/**").permitAll()
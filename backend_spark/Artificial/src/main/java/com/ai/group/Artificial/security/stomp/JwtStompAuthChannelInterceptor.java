@@ -51,7 +51,7 @@ public class JwtStompAuthChannelInterceptor implements ChannelInterceptor {
                 try {
                     Jwt jwt = jwtDecoder.decode(token);
 
-                    UUID id = resolveUuid(jwt);
+                    UUID id = users.resolve(jwt).orElse(null);
                     String email = str(jwt, "email");
 
                     if (id != null) {
@@ -78,25 +78,4 @@ public class JwtStompAuthChannelInterceptor implements ChannelInterceptor {
         Object v = jwt.getClaims().get(claim);
         return v != null ? v.toString() : null;
     }
-
-    private UUID resolveUuid(Jwt jwt) {
-        // Try direct UUID claims first
-        for (String k : new String[]{"id", "sub", "userId", "uid"}) {
-            String v = str(jwt, k);
-            if (StringUtils.hasText(v)) {
-                try { return UUID.fromString(v); } catch (Exception ignore) {}
-            }
-        }
-        // Fallbacks via DB
-        String email = str(jwt, "email");
-        if (StringUtils.hasText(email)) {
-            var id = users.findIdByEmail(email).orElse(null);
-            if (id != null) return id;
-        }
-        String sub = jwt.getSubject();
-        if (StringUtils.hasText(sub)) {
-            return users.findIdByUsernameOrEmail(sub).orElse(null);
-        }
-        return null;
-    }
 }
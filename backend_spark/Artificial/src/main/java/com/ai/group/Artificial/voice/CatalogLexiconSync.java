@@ -0,0 +1,85 @@
+package com.ai.group.Artificial.voice;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+/**
+ * Keeps the STT lexicon in step with the electronics-store catalog.
+ * Periodically pages through the store's public product search and forwards only the products that
+ * appeared, changed or disappeared since the previous pull; pushed changes from
+ * {@link CatalogSyncController} go through the same incremental path.
+ */
+@Slf4j
+@Component
+public class CatalogLexiconSync {
+
+    private final SttService stt;
+    private final RestTemplate restTemplate;
+
+    @Value("${voice.lexicon.catalog.base-url:}")
+    private String storeBaseUrl;
+
+    @Value("${voice.lexicon.catalog.page-size:200}")
+    private int pageSize;
+
+    // product id -> title as of the last successful pull; only touched by the scheduler thread
+    private Map<String, String> lastPulled = Map.of();
+
+    public CatalogLexiconSync(SttService stt,
+                              @Value("${voice.lexicon.catalog.timeout-ms:10000}") long timeoutMs) {
+        this.stt = stt;
+
+        // a hung store call would otherwise hold the scheduler thread, and every later pull, forever
+        SimpleClientHttpRequestFactory rf = new SimpleClientHttpRequestFactory();
+        rf.setConnectTimeout((int) timeoutMs);
+        rf.setReadTimeout((int) timeoutMs);
+        this.restTemplate = new RestTemplate(rf);
+    }
+
+    @Scheduled(initialDelayString = "${voice.lexicon.catalog.initial-delay-ms:10000}",
+            fixedDelayString = "${voice.lexicon.catalog.pull-ms:300000}")
+    public void pull() {
+        if (!StringUtils.hasText(storeBaseUrl)) return;
+
+        Map<String, String> current = new HashMap<>();
+        try {
+            for (int page = 0; ; page++) {
+                String url = storeBaseUrl + "/products/search?page=" + page + "&size=" + pageSize;
+                List<Map<String, Object>> items = restTemplate.exchange(url, HttpMethod.GET, null,
+                        new ParameterizedTypeReference<List<Map<String, Object>>>() {}).getBody();
+                if (items == null || items.isEmpty()) break;
+                for (Map<String, Object> p : items) {
+                    Object id = p.get("id"), name = p.get("name");
+                    if (id != null && name != null) current.put(id.toString(), name.toString());
+                }
+                if (items.size() < pageSize) break;
+            }
+        } catch (Exception e) {
+            log.warn("Catalog pull from {} failed: {}", storeBaseUrl, e.toString());
+            return;
+        }
+
+        List<LexiconBuilder.CatalogItem> upserts = new ArrayList<>();
+        current.forEach((id, title) -> {
+            if (!title.equals(lastPulled.get(id))) upserts.add(new LexiconBuilder.CatalogItem(id, null, title));
+        });
+        List<String> deletes = lastPulled.keySet().stream().filter(id -> !current.containsKey(id)).toList();
+
+        stt.updateCatalog(upserts, deletes);
+        lastPulled = current;
+    }
+
+    /** Apply pushed product changes (brand may be null). */
+    public void push(Collection<LexiconBuilder.CatalogItem> upserts, Collection<String> deletedIds) {
+        stt.updateCatalog(upserts, deletedIds);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ai.group.Artificial.voice;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Push path for catalog changes, so the lexicon does not have to wait for the next periodic pull.
+ * Nothing calls it yet: electronics-store does not emit product change events, and wiring that up is
+ * a store-side change. Until then the pull in {@link CatalogLexiconSync} is the source of truth.
+ */
+@RestController
+@RequestMapping("/internal/sync/catalog")
+public class CatalogSyncController {
+
+    private final CatalogLexiconSync sync;
+
+    public CatalogSyncController(CatalogLexiconSync sync) { this.sync = sync; }
+
+    /** POST /internal/sync/catalog  { "upserts": [{id, brand, name}], "deletes": [id] } */
+    @PostMapping
+    public ResponseEntity<Void> changes(@RequestBody CatalogChanges body) {
+        List<LexiconBuilder.CatalogItem> upserts = body.upserts() == null ? List.of() : body.upserts().stream()
+                .filter(p -> p.id() != null)
+                .map(p -> new LexiconBuilder.CatalogItem(p.id().toString(), p.brand(), p.name()))
+                .toList();
+        List<String> deletes = body.deletes() == null ? List.of() : body.deletes().stream()
+                .map(UUID::toString)
+                .toList();
+        sync.push(upserts, deletes);
+        return ResponseEntity.noContent().build();
+    }
+
+    public record CatalogProduct(UUID id, String brand, String name) {}
+
+    public record CatalogChanges(List<CatalogProduct> upserts, List<UUID> deletes) {}
+}
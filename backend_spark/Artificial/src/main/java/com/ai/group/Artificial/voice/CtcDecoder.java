@@ -0,0 +1,169 @@
+package com.ai.group.Artificial.voice;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Greedy CTC decoding straight off the model's [L,V] (or [1,L,V]) float logits.
+ * The logits are read once through a direct buffer; argmax, blank/repeat collapse and
+ * '|' -> space emission happen in the same pass, without intermediate NDArrays or regexes.
+ */
+final class CtcDecoder {
+
+    /**
+     * Per-frame argmax ids plus, when requested, the {@code k} best token ids and logits of every
+     * frame (row-major, {@code ids.length * k}) for downstream rescoring.
+     */
+    record Frames(int[] ids, int k, int[] topIds, float[] topLogits) {
+
+        Frames slice(int from, int to) {
+            return new Frames(Arrays.copyOfRange(ids, from, to), k,
+                    k > 0 ? Arrays.copyOfRange(topIds, from * k, to * k) : null,
+                    k > 0 ? Arrays.copyOfRange(topLogits, from * k, to * k) : null);
+        }
+
+        static Frames concat(Frames[] parts, int k) {
+            int total = 0;
+            for (Frames f : parts) total += f.ids.length;
+            Frames out = new Frames(new int[total], k, k > 0 ? new int[total * k] : null, k > 0 ? new float[total * k] : null);
+            int pos = 0;
+            for (Frames f : parts) {
+                System.arraycopy(f.ids, 0, out.ids, pos, f.ids.length);
+                if (k > 0) {
+                    System.arraycopy(f.topIds, 0, out.topIds, pos * k, f.ids.length * k);
+                    System.arraycopy(f.topLogits, 0, out.topLogits, pos * k, f.ids.length * k);
+                }
+                pos += f.ids.length;
+            }
+            return out;
+        }
+    }
+
+    /** Decoded text, and the frames it came from when top-k was requested (else null). */
+    record Result(String text, Frames frames) {}
+
+    private final String[] id2token;
+    private final int blankId;
+    private final int wordSep;                  // id of "|" or -1
+
+    CtcDecoder(String[] id2token, int blankId) {
+        this.id2token = id2token;
+        this.blankId = blankId;
+        int sep = -1;
+        for (int i = 0; i < id2token.length; i++) if ("|".equals(id2token[i])) { sep = i; break; }
+        this.wordSep = sep;
+    }
+
+    /** Decode to text; {@code topK > 0} additionally keeps the per-frame top-k hypotheses. */
+    Result decode(NDArray logits, int topK) {
+        return decode(floats(logits), vocabSize(logits), topK);
+    }
+
+    /** Same as {@link #decode(NDArray, int)} over row-major {@code [L,V]} logits already on the heap. */
+    Result decode(FloatBuffer fb, int V, int topK) {
+        int L = fb.remaining() / V;
+        int k = Math.min(Math.max(0, topK), V);
+        Frames frames = k > 0 ? new Frames(new int[L], k, new int[L * k], new float[L * k]) : null;
+
+        StringBuilder sb = new StringBuilder(L / 2);
+        int prev = -1;
+        for (int t = 0, base = fb.position(); t < L; t++, base += V) {
+            int id = argmax(fb, base, V);
+            if (k > 0) {
+                frames.ids[t] = id;
+                topK(fb, base, V, k, frames.topIds, frames.topLogits, t * k);
+            }
+            if (id != blankId && id != prev) append(sb, id);
+            prev = id;
+        }
+        return new Result(trimEnd(sb), frames);
+    }
+
+    /** Per-frame argmax (and optional top-k) only, for stitching windows before a single {@link #collapse}. */
+    Frames frames(NDArray logits, int topK) {
+        FloatBuffer fb = floats(logits);
+        int V = vocabSize(logits);
+        int L = fb.remaining() / V;
+        int k = Math.min(Math.max(0, topK), V);
+        Frames frames = new Frames(new int[L], k, k > 0 ? new int[L * k] : null, k > 0 ? new float[L * k] : null);
+        for (int t = 0, base = fb.position(); t < L; t++, base += V) {
+            frames.ids[t] = argmax(fb, base, V);
+            if (k > 0) topK(fb, base, V, k, frames.topIds, frames.topLogits, t * k);
+        }
+        return frames;
+    }
+
+    /** Collapse blanks and repeats of a frame id sequence and map it to text. */
+    String collapse(int[] ids) {
+        StringBuilder sb = new StringBuilder(ids.length / 2);
+        int prev = -1;
+        for (int id : ids) {
+            if (id != blankId && id != prev) append(sb, id);
+            prev = id;
+        }
+        return trimEnd(sb);
+    }
+
+    // Same output as the old replace('|',' ').replaceAll("\\s+"," ").trim(): no leading or doubled spaces
+    private void append(StringBuilder sb, int id) {
+        if (id == wordSep) {
+            if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') sb.append(' ');
+            return;
+        }
+        String tok = (id >= 0 && id < id2token.length && id2token[id] != null) ? id2token[id] : "";
+        sb.append(tok);
+    }
+
+    private static String trimEnd(StringBuilder sb) {
+        int n = sb.length();
+        while (n > 0 && sb.charAt(n - 1) == ' ') n--;
+        return sb.substring(0, n);
+    }
+
+    private static int argmax(FloatBuffer fb, int base, int V) {
+        int best = 0;
+        float bestV = fb.get(base);
+        for (int v = 1; v < V; v++) {
+            float x = fb.get(base + v);
+            if (x > bestV) { bestV = x; best = v; }
+        }
+        return best;
+    }
+
+    /** Insertion into a k-slot descending list; k is small (a handful of alternatives). */
+    private static void topK(FloatBuffer fb, int base, int V, int k, int[] ids, float[] vals, int off) {
+        int n = 0;
+        for (int v = 0; v < V; v++) {
+            float x = fb.get(base + v);
+            if (n == k && x <= vals[off + k - 1]) continue;
+            int i = Math.min(n, k - 1);
+            while (i > 0 && vals[off + i - 1] < x) {
+                vals[off + i] = vals[off + i - 1];
+                ids[off + i] = ids[off + i - 1];
+                i--;
+            }
+            vals[off + i] = x;
+            ids[off + i] = v;
+            if (n < k) n++;
+        }
+    }
+
+    private static int vocabSize(NDArray logits) {
+        Shape sh = logits.getShape();
+        return (int) sh.get(sh.dimension() - 1);
+    }
+
+    private static FloatBuffer floats(NDArray logits) {
+        Shape sh = logits.getShape();
+        if (sh.dimension() == 3 && sh.get(0) != 1) {
+            throw new IllegalArgumentException("Expected logits [1,L,V] or [L,V], got " + sh);
+        }
+        NDArray f = logits.getDataType() == DataType.FLOAT32 ? logits : logits.toType(DataType.FLOAT32, false);
+        return f.toByteBuffer(true).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+}
@@ -0,0 +1,122 @@
+package com.ai.group.Artificial.voice;
+
+import java.util.*;
+
+/**
+ * Incremental builder for the live part of the STT lexicon.
+ * The base lexicon (hotwords, phrases, canon words and CSV priors) is fixed at startup; catalog
+ * products are layered on top with reference counts, so an upsert or delete only yields the words,
+ * priors and phrases it actually changed. Not thread-safe: callers serialize {@link #apply}.
+ */
+final class LexiconBuilder {
+
+    /** A catalog product as seen by the lexicon. {@code brand} may be null. */
+    record CatalogItem(String id, String brand, String title) {}
+
+    /** Net effect of one {@link #apply} call, ready for {@link SttLexicon} index updates. */
+    record Delta(Map<String, LexiconIndex.Term> upserts, Set<String> removedWords,
+                 Set<String> addedPhrases, Set<String> removedPhrases) {
+        boolean isEmpty() {
+            return upserts.isEmpty() && removedWords.isEmpty() && addedPhrases.isEmpty() && removedPhrases.isEmpty();
+        }
+    }
+
+    // Same weights as the catalog CSV loader: brands count 5, product title words 1
+    private static final int BRAND_PRIOR = 5;
+    private static final int WORD_PRIOR = 1;
+
+    private final Map<String, LexiconIndex.Term> base;
+    private final Set<String> basePhrases;
+
+    private final Map<String, CatalogItem> items = new HashMap<>();
+    private final Map<String, Contribution> words = new HashMap<>();   // catalog-only share per word
+    private final Map<String, Integer> phraseRefs = new HashMap<>();
+
+    LexiconBuilder(Map<String, LexiconIndex.Term> base, Collection<String> basePhrases) {
+        this.base = Map.copyOf(base);
+        this.basePhrases = Set.copyOf(basePhrases);
+    }
+
+    int catalogSize() { return items.size(); }
+
+    Delta apply(Collection<CatalogItem> upserts, Collection<String> deletedIds) {
+        Set<String> touchedWords = new HashSet<>();
+        Set<String> touchedPhrases = new HashSet<>();
+
+        for (String id : deletedIds) {
+            CatalogItem old = items.remove(id);
+            if (old != null) contribute(old, -1, touchedWords, touchedPhrases);
+        }
+        for (CatalogItem it : upserts) {
+            CatalogItem old = items.put(it.id(), it);
+            if (it.equals(old)) continue;
+            if (old != null) contribute(old, -1, touchedWords, touchedPhrases);
+            contribute(it, +1, touchedWords, touchedPhrases);
+        }
+
+        Map<String, LexiconIndex.Term> up = new HashMap<>();
+        Set<String> removed = new HashSet<>();
+        for (String w : touchedWords) {
+            LexiconIndex.Term b = base.get(w);
+            Contribution c = words.get(w);
+            if (c == null) {
+                if (b != null) up.put(w, b); else removed.add(w);
+            } else {
+                int prior = (b == null ? 0 : b.prior()) + c.prior;
+                String cased = b != null && b.cased() != null ? b.cased() : c.cased;
+                up.put(w, new LexiconIndex.Term(prior, cased));
+            }
+        }
+
+        Set<String> added = new HashSet<>();
+        Set<String> gone = new HashSet<>();
+        for (String p : touchedPhrases) {
+            if (basePhrases.contains(p)) continue;
+            if (phraseRefs.containsKey(p)) added.add(p); else gone.add(p);
+        }
+        return new Delta(up, removed, added, gone);
+    }
+
+    private void contribute(CatalogItem it, int sign, Set<String> touchedWords, Set<String> touchedPhrases) {
+        if (it.brand() != null) {
+            for (String w : tokens(it.brand())) {
+                add(w, sign, BRAND_PRIOR, null);
+                touchedWords.add(w);
+            }
+        }
+        if (it.title() == null) return;
+        for (String raw : it.title().trim().split("[^A-Za-z0-9]+")) {
+            String w = raw.toLowerCase(Locale.ROOT);
+            if (w.isEmpty() || w.length() > 40) continue;
+            add(w, sign, WORD_PRIOR, raw.equals(w) ? null : raw);
+            touchedWords.add(w);
+        }
+        String phrase = String.join(" ", tokens(it.title()));
+        if (!phrase.isEmpty()) {
+            phraseRefs.merge(phrase, sign, (a, b) -> a + b == 0 ? null : a + b);
+            touchedPhrases.add(phrase);
+        }
+    }
+
+    private void add(String w, int sign, int prior, String cased) {
+        Contribution c = words.computeIfAbsent(w, k -> new Contribution());
+        c.refs += sign;
+        c.prior += sign * prior;
+        if (c.refs <= 0) words.remove(w);
+        else if (sign > 0 && c.cased == null) c.cased = cased;
+    }
+
+    private static List<String> tokens(String s) {
+        List<String> out = new ArrayList<>();
+        for (String w : s.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (!w.isEmpty() && w.length() <= 40) out.add(w);
+        }
+        return out;
+    }
+
+    private static final class Contribution {
+        int refs;
+        int prior;
+        String cased;
+    }
+}
@@ -0,0 +1,180 @@
+package com.ai.group.Artificial.voice;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.apache.commons.text.similarity.LevenshteinDistance;
+
+import java.util.*;
+
+/**
+ * Immutable fuzzy index over the STT bias lexicon.
+ * Words are bucketed by their first {@code prefixLen} letters (same key as the old byPrefix map);
+ * every bucket is a BK-tree over Levenshtein distance, so a lookup only walks the subtrees that can
+ * still hold a word within the requested radius. Phonetic codes, priors and canonical casing are
+ * stored on the tree nodes and computed once at build time.
+ */
+final class LexiconIndex {
+
+    private static final LevenshteinDistance LD = new LevenshteinDistance();
+
+    /** What the index stores per word: its prior weight and canonical casing (null = as is). */
+    record Term(int prior, String cased) {}
+
+    /** A lexicon word within the lookup radius, with its precomputed DoubleMetaphone code. */
+    record Candidate(String word, String meta, int prior, int distance) {}
+
+    private final int prefixLen;
+    private final Map<String, Bucket> buckets;
+    private final int size;
+
+    private LexiconIndex(int prefixLen, Map<String, Bucket> buckets, int size) {
+        this.prefixLen = prefixLen;
+        this.buckets = buckets;
+        this.size = size;
+    }
+
+    /** @param terms lowercased word -> term */
+    static LexiconIndex build(Map<String, Term> terms, int prefixLen) {
+        Map<String, Map<String, Term>> grouped = new HashMap<>();
+        for (var e : terms.entrySet()) {
+            if (e.getKey().isEmpty()) continue;
+            grouped.computeIfAbsent(key(e.getKey(), prefixLen), k -> new HashMap<>()).put(e.getKey(), e.getValue());
+        }
+
+        DoubleMetaphone dmeta = new DoubleMetaphone();
+        Map<String, Bucket> buckets = new HashMap<>(grouped.size() * 2);
+        int size = 0;
+        for (var e : grouped.entrySet()) {
+            Bucket b = Bucket.build(e.getValue(), dmeta, Map.of());
+            buckets.put(e.getKey(), b);
+            size += b.nodes.size();
+        }
+        return new LexiconIndex(prefixLen, buckets, size);
+    }
+
+    /**
+     * Copy of this index with {@code upserts} added or replaced and {@code removed} dropped.
+     * Only the prefix buckets touched by the change are rebuilt; all others are shared.
+     */
+    LexiconIndex withChanges(Map<String, Term> upserts, Collection<String> removed) {
+        Map<String, Map<String, Term>> touched = new HashMap<>();
+        for (String w : removed) {
+            if (!w.isEmpty()) touched.computeIfAbsent(key(w, prefixLen), this::termsOf).remove(w);
+        }
+        for (var e : upserts.entrySet()) {
+            if (!e.getKey().isEmpty()) touched.computeIfAbsent(key(e.getKey(), prefixLen), this::termsOf).put(e.getKey(), e.getValue());
+        }
+        if (touched.isEmpty()) return this;
+
+        DoubleMetaphone dmeta = new DoubleMetaphone();
+        Map<String, Bucket> next = new HashMap<>(buckets);
+        int size = this.size;
+        for (var e : touched.entrySet()) {
+            Bucket old = next.remove(e.getKey());
+            Map<String, Node> reuse = old == null ? Map.of() : old.nodes;
+            size -= reuse.size();
+            if (e.getValue().isEmpty()) continue;
+            Bucket b = Bucket.build(e.getValue(), dmeta, reuse);
+            next.put(e.getKey(), b);
+            size += b.nodes.size();
+        }
+        return new LexiconIndex(prefixLen, next, size);
+    }
+
+    int size() { return size; }
+
+    /** Canonical casing of a lexicon word, or the word itself. */
+    String cased(String word) {
+        Bucket b = buckets.get(key(word, prefixLen));
+        Node n = b == null ? null : b.nodes.get(word);
+        return n == null || n.cased == null ? word : n.cased;
+    }
+
+    /**
+     * Words sharing {@code lw}'s prefix bucket whose length differs from it by at most {@code maxLenDelta}
+     * and whose edit distance to it is at most {@code maxDist}.
+     */
+    List<Candidate> candidates(String lw, int maxDist, int maxLenDelta) {
+        Bucket b = buckets.get(key(lw, prefixLen));
+        if (b == null) return List.of();
+        List<Candidate> out = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(b.root);
+        while (!stack.isEmpty()) {
+            Node n = stack.pop();
+            boolean lengthOk = Math.abs(n.word.length() - lw.length()) <= Math.min(maxLenDelta, maxDist);
+            // a leaf outside the length window can neither match nor lead anywhere: skip the distance
+            if (!lengthOk && n.children == null) continue;
+            int d = LD.apply(lw, n.word);
+            if (lengthOk && d <= maxDist) out.add(new Candidate(n.word, n.meta, n.prior, d));
+            if (n.children == null) continue;
+            // triangle inequality: only children at distance [d - maxDist, d + maxDist] can match
+            for (var c : n.children.subMap(d - maxDist, true, d + maxDist, true).values()) stack.push(c);
+        }
+        return out;
+    }
+
+    private Map<String, Term> termsOf(String bucketKey) {
+        Bucket b = buckets.get(bucketKey);
+        Map<String, Term> out = new HashMap<>();
+        if (b != null) b.nodes.values().forEach(n -> out.put(n.word, new Term(n.prior, n.cased)));
+        return out;
+    }
+
+    private static String key(String lw, int prefixLen) {
+        return lw.length() >= prefixLen ? lw.substring(0, prefixLen) : lw;
+    }
+
+    private record Bucket(Node root, Map<String, Node> nodes) {
+
+        /** @param previous nodes of the bucket being replaced; their phonetic codes are reused */
+        static Bucket build(Map<String, Term> terms, DoubleMetaphone dmeta, Map<String, Node> previous) {
+            List<String> words = new ArrayList<>(terms.keySet());
+            // length then alpha: shorter, common words become roots and keep the trees shallow
+            words.sort(Comparator.<String>comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+            Map<String, Node> nodes = new HashMap<>(words.size() * 2);
+            Node root = null;
+            for (String w : words) {
+                Term t = terms.get(w);
+                Node old = previous.get(w);
+                Node n = new Node(w, old != null ? old.meta : meta(dmeta, w), t.prior(), t.cased());
+                nodes.put(w, n);
+                if (root == null) root = n; else root.insert(n);
+            }
+            return new Bucket(root, nodes);
+        }
+    }
+
+    private static String meta(DoubleMetaphone dmeta, String s) {
+        try { return dmeta.encode(s); } catch (Exception e) { return ""; }
+    }
+
+    private static final class Node {
+        final String word;
+        final String meta;
+        final int prior;
+        final String cased;
+        TreeMap<Integer, Node> children; // only mutated while building
+
+        Node(String word, String meta, int prior, String cased) {
+            this.word = word;
+            this.meta = meta;
+            this.prior = prior;
+            this.cased = cased;
+        }
+
+        void insert(Node n) {
+            Node cur = this;
+            while (true) {
+                int d = LD.apply(n.word, cur.word);
+                if (d == 0) return;
+                if (cur.children == null) cur.children = new TreeMap<>();
+                Node next = cur.children.get(d);
+                if (next == null) {
+                    cur.children.put(d, n);
+                    return;
+                }
+                cur = next;
+            }
+        }
+    }
+}
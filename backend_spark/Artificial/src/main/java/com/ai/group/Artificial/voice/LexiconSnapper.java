@@ -0,0 +1,158 @@
+package com.ai.group.Artificial.voice;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+
+import java.util.*;
+
+/**
+ * Post-processing of greedy STT text against an {@link SttLexicon} snapshot: every word is snapped to
+ * the best-scoring lexicon word (autocomplete + fuzzy + phonetic + priors), then the whole utterance
+ * to a known phrase. Word results are memoized per lexicon version. Thread-safe.
+ */
+final class LexiconSnapper {
+
+    private final WordSnapCache snapCache;                                      // greedy word -> snapped, per lexicon version
+    private final DoubleMetaphone dmeta = new DoubleMetaphone();
+    private final JaroWinklerSimilarity jws = new JaroWinklerSimilarity();
+
+    // Tuning
+    private final int wordSnapThreshold = 84;   // legacy threshold (kept for compatibility; not used directly now)
+    private final int phraseSnapThreshold = 92; // phrase-level set ratio-ish threshold
+
+    // New tuning knobs for the combined scorer
+    private final int maxLenDelta = 3;          // ignore candidates that differ in length by > this
+    private final int maxEdits;                 // BK-tree radius cap (0 = the score envelope alone, ~60% of the word)
+    private final double snapScore = 0.78;      // combined score cutoff (0..1+)
+
+    // Blend weights of the word scorer; also used to bound which candidates can still reach snapScore
+    private static final double W_EDIT = 0.45, W_JW = 0.15, W_PREFIX = 0.20, W_PHONETIC = 0.15, W_PRIOR = 0.05;
+    private static final double MAX_PRIOR = 0.2, AUTOCOMPLETE_BONUS = 0.08;
+    // Lowest edit similarity that can still reach snapScore when every other component is maxed
+    private final double minEditSim = (snapScore - (W_JW + W_PREFIX + W_PHONETIC + W_PRIOR * MAX_PRIOR + AUTOCOMPLETE_BONUS)) / W_EDIT;
+
+    LexiconSnapper(int snapCacheSize, int maxEdits) {
+        this.snapCache = new WordSnapCache(snapCacheSize);
+        this.maxEdits = maxEdits > 0 ? maxEdits : Integer.MAX_VALUE;
+    }
+
+    Map<String, Object> cacheStats() {
+        return snapCache.stats();
+    }
+
+    void clearCache() {
+        snapCache.clear();
+    }
+
+    String snapWords(SttLexicon lex, String text) {
+        if (text.isEmpty()) return text;
+        String[] words = text.split("\\s+");
+        List<String> out = new ArrayList<>(words.length);
+        for (String w : words) {
+            String lw = w.toLowerCase(Locale.ROOT);
+            String fix = snapCache.get(lw, lex.version());
+            if (fix == null) {
+                fix = snapOneWord(lex, lw);
+                snapCache.put(lw, lex.version(), fix);
+            }
+            if (!fix.isEmpty()) out.add(fix);
+        }
+        return String.join(" ", out);
+    }
+
+    private String snapOneWord(SttLexicon lex, String w) {
+        String lw = w.toLowerCase(Locale.ROOT);
+        if (lw.isEmpty()) return "";
+
+        // candidates of the prefix bucket within the edit-distance envelope of snapScore, capped so the
+        // BK-tree still prunes (the envelope assumes every other component maxed out)
+        int maxDist = Math.min(maxEdits, (int) Math.floor((1.0 - minEditSim) * (lw.length() + maxLenDelta)));
+        List<LexiconIndex.Candidate> bucket = lex.words().candidates(lw, maxDist, maxLenDelta);
+        if (bucket.isEmpty()) return ""; // nothing plausible
+
+        String best = null;
+        double bestScore = -1.0;
+
+        // precompute phonetic for input
+        String metaIn = safeMeta(lw);
+
+        for (LexiconIndex.Candidate c : bucket) {
+            String cand = c.word();
+            if (!cand.isEmpty() && !lw.isEmpty() && cand.charAt(0) != lw.charAt(0)) continue;
+
+            // components
+            double editSim = 1.0 - (double) c.distance() / Math.max(1, Math.max(lw.length(), cand.length())); // 0..1
+            double prefixSim = prefixCoverage(lw, cand);    // 0..1
+            double phonetic = metaIn.equals(c.meta()) ? 1.0 : 0.0;
+            double prior = priorWeight(c.prior());          // 0..~0.2
+
+            // blend (tunable); Jaro-Winkler last since it is the only component left to compute
+            double score = W_EDIT * editSim
+                    + W_PREFIX * prefixSim
+                    + W_PHONETIC * phonetic
+                    + W_PRIOR * prior;
+
+            // strong autocomplete bonus when cand starts with input
+            if (cand.startsWith(lw) && editSim > 0.6) score += AUTOCOMPLETE_BONUS;
+
+            // even a perfect Jaro-Winkler cannot lift this one over the cutoff or the current best
+            if (score + W_JW < snapScore || score + W_JW < bestScore) continue;
+            score += W_JW * jaroWinkler(lw, cand);
+
+            // ties go to the shorter, then alphabetically first word (the old bucket order)
+            if (score > bestScore || (score == bestScore && BUCKET_ORDER.compare(cand, best) < 0)) {
+                bestScore = score;
+                best = cand;
+            }
+        }
+
+        if (best != null && bestScore >= snapScore) {
+            // apply canonical casing if available
+            return lex.words().cased(best);
+        }
+        return ""; // unknown → drop (keeps titles focused)
+    }
+
+    private static final Comparator<String> BUCKET_ORDER =
+            Comparator.<String>comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    String phraseSnap(SttLexicon lex, String text) {
+        if (text.isEmpty() || lex.phrases().isEmpty()) return text;
+        Set<String> A = new LinkedHashSet<>(Arrays.asList(text.toLowerCase(Locale.ROOT).split("\\s+")));
+        String best = lex.phrases().best(A, phraseSnapThreshold); // only phrases sharing a token are scored
+        if (best != null) {
+            StringBuilder sb = new StringBuilder();
+            for (String w : best.split("\\s+"))
+                sb.append(lex.words().cased(w)).append(' ');
+            return sb.toString().trim();
+        }
+        return text;
+    }
+
+    // ---------- helpers for scoring ----------
+
+    private String safeMeta(String s) {
+        try { return dmeta.encode(s); } catch (Exception e) { return ""; }
+    }
+
+    private double prefixCoverage(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i)) i++;
+        return n == 0 ? 0 : (double) i / (double) n; // 0..1 of shared prefix
+    }
+
+    private double jaroWinkler(String a, String b) {
+        try {
+            Double v = jws.apply(a, b);
+            return v == null ? 0.0 : v;
+        } catch (Exception e) {
+            return 0.0;
+        }
+    }
+
+    private double priorWeight(int f) {
+        // small diminishing returns boost (0..~0.2)
+        return Math.min(MAX_PRIOR, Math.log1p(f) / 10.0);
+    }
+}
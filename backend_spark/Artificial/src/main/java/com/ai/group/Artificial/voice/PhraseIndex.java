@@ -0,0 +1,137 @@
+package com.ai.group.Artificial.voice;
+
+import java.util.*;
+
+/**
+ * Immutable inverted index over the known product phrases (lowercased, whitespace tokenized).
+ * Each token maps to the ids of the phrases containing it, ordered by phrase token-set size, so a
+ * lookup only touches phrases that share a token with the query and whose size can still reach
+ * the score threshold.
+ */
+final class PhraseIndex {
+
+    // Rebuild without removed ids once they make up this share of all ids (and at least MIN_DEAD)
+    private static final double MAX_DEAD_RATIO = 0.25;
+    private static final int MIN_DEAD = 64;
+
+    private final List<String> phrases;          // id -> phrase (null once removed)
+    private final int[] sizes;                   // id -> distinct token count
+    private final Map<String, Integer> ids;      // phrase -> id
+    private final Map<String, int[]> postings;   // token -> ids sorted by (size, id)
+    private final int live;
+
+    private PhraseIndex(List<String> phrases, int[] sizes, Map<String, Integer> ids, Map<String, int[]> postings) {
+        this.phrases = phrases;
+        this.sizes = sizes;
+        this.ids = ids;
+        this.postings = postings;
+        this.live = ids.size();
+    }
+
+    static PhraseIndex build(List<String> phrases) {
+        return new PhraseIndex(List.of(), new int[0], Map.of(), Map.of()).withChanges(phrases, List.of());
+    }
+
+    /**
+     * Copy of this index with {@code added} phrases appended and {@code removed} ones dropped.
+     * Only the postings of tokens that occur in a changed phrase are rebuilt; all others are shared.
+     * Removed phrases leave an unused id behind, added ones always sort after the existing ones; once
+     * unused ids pass {@link #MAX_DEAD_RATIO} the index is rebuilt from the live phrases in id order.
+     */
+    PhraseIndex withChanges(Collection<String> added, Collection<String> removed) {
+        List<String> ph = new ArrayList<>(phrases);
+        Map<String, Integer> nextIds = new HashMap<>(ids);
+        Map<String, Set<Integer>> drop = new HashMap<>();   // token -> ids to remove
+        Map<String, List<Integer>> add = new HashMap<>();   // token -> ids to insert
+        int[] nextSizes = Arrays.copyOf(sizes, sizes.length + added.size());
+
+        for (String p : removed) {
+            Integer id = nextIds.remove(p);
+            if (id == null) continue;
+            ph.set(id, null);
+            for (String t : tokens(p)) drop.computeIfAbsent(t, k -> new HashSet<>()).add(id);
+        }
+        for (String p : added) {
+            if (nextIds.containsKey(p)) continue;
+            int id = ph.size();
+            ph.add(p);
+            nextIds.put(p, id);
+            Set<String> tokens = tokens(p);
+            nextSizes[id] = tokens.size();
+            for (String t : tokens) add.computeIfAbsent(t, k -> new ArrayList<>()).add(id);
+        }
+        if (drop.isEmpty() && add.isEmpty()) return this;
+
+        int dead = ph.size() - nextIds.size();
+        if (dead >= MIN_DEAD && dead > ph.size() * MAX_DEAD_RATIO) {
+            // same relative order, so ties still go to the phrase listed first
+            return build(ph.stream().filter(Objects::nonNull).toList());
+        }
+
+        int[] sz = Arrays.copyOf(nextSizes, ph.size());
+        Comparator<Integer> bySize = Comparator.<Integer>comparingInt(id -> sz[id]).thenComparingInt(id -> id);
+        Map<String, int[]> next = new HashMap<>(postings);
+        Set<String> touched = new HashSet<>(drop.keySet());
+        touched.addAll(add.keySet());
+        for (String t : touched) {
+            Set<Integer> gone = drop.getOrDefault(t, Set.of());
+            List<Integer> merged = new ArrayList<>();
+            for (int id : postings.getOrDefault(t, new int[0])) if (!gone.contains(id)) merged.add(id);
+            merged.addAll(add.getOrDefault(t, List.of()));
+            if (merged.isEmpty()) next.remove(t);
+            else next.put(t, merged.stream().sorted(bySize).mapToInt(Integer::intValue).toArray());
+        }
+        return new PhraseIndex(ph, sz, nextIds, next);
+    }
+
+    boolean isEmpty() { return live == 0; }
+
+    int size() { return live; }
+
+    /**
+     * Best phrase by token-set ratio {@code 100 * 2|A∩B| / (|A| + |B|)} that reaches {@code threshold},
+     * or null. Ties go to the phrase listed first.
+     */
+    String best(Set<String> query, double threshold) {
+        int a = query.size();
+        if (a == 0 || live == 0) return null;
+
+        // A phrase of size b scores at most 200*min(a,b)/(a+b); keep only sizes that can reach threshold
+        int minSize = (int) Math.ceil(a * threshold / (200.0 - threshold) - 1e-9);
+        int maxSize = threshold <= 0 ? Integer.MAX_VALUE : (int) Math.floor(a * (200.0 - threshold) / threshold + 1e-9);
+
+        Map<Integer, Integer> inter = new HashMap<>();
+        for (String t : query) {
+            int[] ids = postings.get(t);
+            if (ids == null) continue;
+            for (int i = firstWithSize(ids, minSize); i < ids.length && sizes[ids[i]] <= maxSize; i++) {
+                inter.merge(ids[i], 1, Integer::sum);
+            }
+        }
+
+        int best = -1;
+        double bestScore = -1;
+        for (var e : inter.entrySet()) {
+            int id = e.getKey();
+            double score = 100.0 * (2.0 * e.getValue()) / (a + sizes[id]);
+            if (score > bestScore || (score == bestScore && id < best)) {
+                bestScore = score;
+                best = id;
+            }
+        }
+        return best >= 0 && bestScore >= threshold ? phrases.get(best) : null;
+    }
+
+    private int firstWithSize(int[] ids, int minSize) {
+        int lo = 0, hi = ids.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sizes[ids[mid]] < minSize) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static Set<String> tokens(String phrase) {
+        return new LinkedHashSet<>(Arrays.asList(phrase.split("\\s+")));
+    }
+}
@@ -0,0 +1,152 @@
+package com.ai.group.Artificial.voice;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Admission control for {@code POST /api/voice/stt} and {@code /api/voice/search}, decided from headers only
+ * (the upload is not read yet). A request's cost is its estimated model time: audio seconds (derived from Content-Length, 32 kB per second
+ * of 16 kHz mono PCM16) times the model real-time factor. Costs are reserved against a global and a
+ * per-client budget for the lifetime of the request; excess requests get 429 with Retry-After.
+ * Long recordings reserve from their own {@code long-share} slice of the global budget, so the rest is
+ * always left to short voice searches, and short searches briefly queue for budget instead of failing
+ * outright. A request costlier than a whole budget reserves (and releases) exactly that budget.
+ */
+@Slf4j
+@Component
+public class SttAdmissionFilter extends OncePerRequestFilter {
+
+    private static final double BYTES_PER_AUDIO_SEC = 16000 * 2;
+
+    private final double rtf;
+    private final double globalBudget;
+    private final double clientBudget;
+    private final double longShare;
+    private final double shortAudioSec;
+    private final double maxAudioSec;
+    private final long queueMs;
+    private final int cores = Runtime.getRuntime().availableProcessors();
+
+    // Reserved model-seconds, guarded by this
+    private double globalInFlight;
+    private double longInFlight;
+    private final Map<String, Double> clientInFlight = new HashMap<>();
+
+    public SttAdmissionFilter(@Value("${voice.stt.admission.rtf:0.15}") double rtf,
+                              @Value("${voice.stt.admission.global-budget-sec:60}") double globalBudget,
+                              @Value("${voice.stt.admission.client-budget-sec:20}") double clientBudget,
+                              @Value("${voice.stt.admission.long-share:0.5}") double longShare,
+                              @Value("${voice.stt.admission.short-audio-sec:15}") double shortAudioSec,
+                              @Value("${voice.stt.admission.max-audio-sec:1800}") double maxAudioSec,
+                              @Value("${voice.stt.admission.queue-ms:2000}") long queueMs) {
+        this.rtf = rtf;
+        this.globalBudget = globalBudget;
+        this.clientBudget = clientBudget;
+        this.longShare = longShare;
+        this.shortAudioSec = shortAudioSec;
+        this.maxAudioSec = maxAudioSec;
+        this.queueMs = queueMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !"POST".equals(request.getMethod()) || !("/api/voice/stt".equals(path) || "/api/voice/search".equals(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        // Chunked uploads carry no length; charge them as the longest accepted recording
+        long len = request.getContentLengthLong();
+        double audioSec = len < 0 ? maxAudioSec : len / BYTES_PER_AUDIO_SEC;
+        if (audioSec > maxAudioSec) {
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE, 0, "Recording longer than " + (long) maxAudioSec + "s");
+            return;
+        }
+        boolean isShort = audioSec <= shortAudioSec;
+        double cost = audioSec * rtf;
+        // What is checked is what is reserved: an oversized request holds one full budget, not more
+        double g = Math.min(cost, isShort ? globalBudget : globalBudget * longShare);
+        double c = Math.min(cost, clientBudget);
+        String client = clientKey(request);
+
+        double retryAfter;
+        try {
+            retryAfter = acquire(client, g, c, isShort);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "Interrupted");
+            return;
+        }
+        if (retryAfter > 0) {
+            log.debug("STT request from {} rejected: {}s audio, {}s estimated", client, (long) audioSec, cost);
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfter, "Voice recognition is busy");
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            release(client, g, c, isShort);
+        }
+    }
+
+    /** @return 0 when admitted, otherwise the suggested Retry-After in seconds */
+    private synchronized double acquire(String client, double g, double c, boolean isShort) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + (isShort ? queueMs : 0);
+        while (true) {
+            double mine = clientInFlight.getOrDefault(client, 0.0);
+            double globalOver = globalInFlight + g - globalBudget;
+            if (!isShort) globalOver = Math.max(globalOver, longInFlight + g - globalBudget * longShare);
+            double clientOver = mine + c - clientBudget;
+            if (globalOver <= 1e-9 && clientOver <= 1e-9) {
+                globalInFlight += g;
+                if (!isShort) longInFlight += g;
+                clientInFlight.merge(client, c, Double::sum);
+                return 0;
+            }
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) {
+                // In-flight work drains at roughly one model-second per core per second
+                return Math.max(1, Math.ceil(Math.max(globalOver / cores, clientOver)));
+            }
+            wait(left);
+        }
+    }
+
+    private synchronized void release(String client, double g, double c, boolean isShort) {
+        globalInFlight = Math.max(0, globalInFlight - g);
+        if (!isShort) longInFlight = Math.max(0, longInFlight - g);
+        clientInFlight.computeIfPresent(client, (k, v) -> v - c > 1e-9 ? v - c : null);
+        notifyAll();
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Principal p = request.getUserPrincipal();
+        return p != null ? "user:" + p.getName() : "ip:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, double retryAfter, String message) throws IOException {
+        response.setStatus(status.value());
+        if (retryAfter > 0) response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((long) retryAfter));
+        response.setHeader(HttpHeaders.CONNECTION, "close"); // don't drain the unread upload
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
@@ -1,6 +1,8 @@
 package com.ai.group.Artificial.voice;
 
+import com.ai.group.Artificial.chat.service.UserDirectoryService;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -12,8 +14,14 @@ import java.util.Map;
 public class SttController {
 
     private final SttService stt;
+    private final VoiceSearchService voiceSearch;
+    private final UserDirectoryService users;
 
-    public SttController(SttService stt) { this.stt = stt; }
+    public SttController(SttService stt, VoiceSearchService voiceSearch, UserDirectoryService users) {
+        this.stt = stt;
+        this.voiceSearch = voiceSearch;
+        this.users = users;
+    }
 
     /** POST /api/voice/stt  (multipart) with "audio" = 16k mono PCM16 WAV */
     @PostMapping(value = "/stt", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
@@ -21,4 +29,17 @@ public class SttController {
     public Map<String, Object> stt(@RequestPart("audio") MultipartFile audio) throws Exception {
         return stt.transcribe(audio.getBytes());
     }
+
+    /** POST /api/voice/search  (multipart) "audio" -> transcript + intent + store products in one call */
+    @PostMapping(value = "/search", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> search(@RequestPart("audio") MultipartFile audio, Authentication auth) throws Exception {
+        return voiceSearch.search(audio.getBytes(), users.resolveUserId(auth).orElse(null));
+    }
+
+    /** GET /api/voice/stt/stats  word-snap cache hit rate */
+    @GetMapping(value = "/stt/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return Map.of("snap_cache", stt.snapCacheStats());
+    }
 }
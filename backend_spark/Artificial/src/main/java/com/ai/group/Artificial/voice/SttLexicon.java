@@ -0,0 +1,8 @@
+package com.ai.group.Artificial.voice;
+
+/**
+ * Immutable snapshot of everything the STT post-processing snaps against.
+ * Published as a whole through an atomic reference, so one request always sees a consistent pair
+ * of word and phrase indexes and never needs a lock.
+ */
+record SttLexicon(LexiconIndex words, PhraseIndex phrases, long version) {}
@@ -0,0 +1,116 @@
+package com.ai.group.Artificial.voice;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Word-error-rate parity check between the fp32 STT model and a reduced-precision variant.
+ * Fixtures are listed in {@code voice_model/parity/manifest.tsv} as {@code file.wav<TAB>reference}
+ * (paths relative to the manifest). Both models decode every fixture; the variant is accepted
+ * only if its WER stays within the allowed delta of fp32. Real-time factors are reported alongside.
+ */
+final class SttParity {
+
+    static final String MANIFEST = "voice_model/parity/manifest.tsv";
+
+    /** Greedy transcript of 16 kHz mono audio with one model. */
+    @FunctionalInterface
+    interface Recognizer {
+        String greedy(float[] audio) throws Exception;
+    }
+
+    record Fixture(String name, float[] audio, String reference) {}
+
+    record Report(int fixtures, double werBaseline, double werVariant, double rtfBaseline, double rtfVariant) {
+        boolean accept(double maxWerDelta) {
+            return fixtures > 0 && werVariant <= werBaseline + maxWerDelta;
+        }
+    }
+
+    private SttParity() {}
+
+    static List<Fixture> loadFixtures() throws Exception {
+        ClassPathResource manifest = new ClassPathResource(MANIFEST);
+        List<Fixture> out = new ArrayList<>();
+        if (!manifest.exists()) return out;
+        String dir = MANIFEST.substring(0, MANIFEST.lastIndexOf('/') + 1);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(manifest.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split("\t", 2);
+                if (parts.length < 2) continue;
+                try (InputStream in = new ClassPathResource(dir + parts[0].trim()).getInputStream()) {
+                    out.add(new Fixture(parts[0].trim(), WavUtil.readPcm16Mono16k(in), parts[1].trim()));
+                }
+            }
+        }
+        return out;
+    }
+
+    static Report compare(List<Fixture> fixtures, Recognizer baseline, Recognizer variant) throws Exception {
+        long words = 0, errBase = 0, errVar = 0, nsBase = 0, nsVar = 0;
+        double audioSec = 0;
+        for (Fixture f : fixtures) {
+            long t0 = System.nanoTime();
+            String hb = baseline.greedy(f.audio());
+            long t1 = System.nanoTime();
+            String hv = variant.greedy(f.audio());
+            long t2 = System.nanoTime();
+            nsBase += t1 - t0;
+            nsVar += t2 - t1;
+            audioSec += f.audio().length / 16000.0;
+
+            String[] ref = words(f.reference());
+            words += ref.length;
+            errBase += editDistance(ref, words(hb));
+            errVar += editDistance(ref, words(hv));
+        }
+        double n = Math.max(1, words);
+        double sec = Math.max(1e-9, audioSec);
+        return new Report(fixtures.size(), errBase / n, errVar / n, nsBase / 1e9 / sec, nsVar / 1e9 / sec);
+    }
+
+    /** bf16 matmuls are only worth it (and only exact enough) on CPUs with native bf16 support. */
+    static boolean bf16Supported() {
+        try {
+            Path cpuinfo = Path.of("/proc/cpuinfo");
+            if (!Files.isReadable(cpuinfo)) return false;
+            String flags = Files.readString(cpuinfo);
+            return flags.contains("avx512_bf16") || flags.contains("amx_bf16");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String[] words(String s) {
+        String t = s == null ? "" : s.toLowerCase(Locale.ROOT).trim();
+        return t.isEmpty() ? new String[0] : t.split("\\s+");
+    }
+
+    /** Word-level Levenshtein distance (substitutions + insertions + deletions). */
+    private static int editDistance(String[] a, String[] b) {
+        int[] prev = new int[b.length + 1], cur = new int[b.length + 1];
+        for (int j = 0; j <= b.length; j++) prev[j] = j;
+        for (int i = 1; i <= a.length; i++) {
+            cur[0] = i;
+            for (int j = 1; j <= b.length; j++) {
+                int sub = prev[j - 1] + (a[i - 1].equals(b[j - 1]) ? 0 : 1);
+                cur[j] = Math.min(sub, Math.min(prev[j] + 1, cur[j - 1] + 1));
+            }
+            int[] tmp = prev; prev = cur; cur = tmp;
+        }
+        return prev[b.length];
+    }
+}
@@ -11,55 +11,71 @@ import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ZooModel;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.commons.codec.language.DoubleMetaphone;
-import org.apache.commons.text.similarity.JaroWinklerSimilarity;
-import org.apache.commons.text.similarity.LevenshteinDistance;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
 @Service
 public class SttService implements AutoCloseable {
 
     private final ZooModel<NDList, NDList> model;
     private final Predictor<NDList, NDList> predictor;
+    private final DataType inputType;           // FLOAT32, or BFLOAT16 for the bf16 variant
 
     private final int blankId;
     private final String[] id2token;            // index -> token
-    private final Map<String, String> canon;    // lower -> cased
-    private final List<String> phrases;         // known product titles (lowercased)
-    private final List<String> lexWords;        // catalog words (lowercased)
-
-    // New: indexes and priors for smarter autocomplete/snapping
-    private final Map<String, List<String>> byPrefix = new HashMap<>(); // "mi" -> [microsoft, micro, ...]
-    private final Map<String, Integer> priors = new HashMap<>();        // word -> freq weight
-    private final DoubleMetaphone dmeta = new DoubleMetaphone();
-    private final JaroWinklerSimilarity jws = new JaroWinklerSimilarity();
-
-    // Tuning
-    private final int wordSnapThreshold = 84;   // legacy threshold (kept for compatibility; not used directly now)
-    private final int phraseSnapThreshold = 92; // phrase-level set ratio-ish threshold
-    private static final LevenshteinDistance LD = new LevenshteinDistance();
-
-    // New tuning knobs for the combined scorer
-    private final int minPrefixBucket = 2;      // use first N letters as a candidate bucket key
-    private final int maxLenDelta = 3;          // ignore candidates that differ in length by > this
-    private final double snapScore = 0.78;      // combined score cutoff (0..1+)
-
-    public SttService() throws Exception {
-        // --- load TorchScript (with normalization baked in) ---
-        File pt = copyResourceToTemp("voice_model/stt_en_with_norm.pt", ".pt");
-        Criteria<NDList, NDList> c = Criteria.builder()
-                .setTypes(NDList.class, NDList.class)
-                .optModelPath(pt.toPath())
-                .optEngine("PyTorch")
-                .build();
-        this.model = c.loadModel();
-        this.predictor = model.newPredictor();
+    private final CtcDecoder decoder;           // greedy decode straight off the logits buffer
+    private final int topK;                     // per-frame alternatives kept for rescoring (0 = off)
+
+    // New: indexes and priors for smarter autocomplete/snapping.
+    // Readers take one snapshot per request; catalog updates build the next one off the request path and swap it in.
+    private final AtomicReference<SttLexicon> lexicon = new AtomicReference<>(); // words: "mi" -> BK-tree, phrases: token -> ids
+    private LexiconBuilder lexiconBuilder;                                      // catalog layer, guarded by this
+    private final LexiconSnapper snapper;                                       // word + phrase snapping, memoized
+
+    static final int MIN_PREFIX_BUCKET = 2;     // use first N letters as a candidate bucket key
+
+    // Long-input chunking: clips longer than one window are split into overlapping windows,
+    // inferred in parallel and stitched back at frame level before the CTC collapse.
+    private static final int SAMPLE_RATE = 16000;
+    private final int windowSamples;            // core + both overlaps
+    private final int overlapSamples;           // context on each side, trimmed after inference
+    private final ExecutorService chunkPool;    // bounded: caps native memory held by in-flight windows
+
+    public SttService(@Value("${voice.stt.chunk.window-sec:20}") double windowSec,
+                      @Value("${voice.stt.chunk.overlap-sec:1}") double overlapSec,
+                      @Value("${voice.stt.chunk.parallelism:0}") int parallelism,
+                      @Value("${voice.stt.snap-cache.size:10000}") int snapCacheSize,
+                      @Value("${voice.stt.snap.max-edits:3}") int snapMaxEdits,
+                      @Value("${voice.stt.decode.top-k:0}") int topK,
+                      @Value("${voice.stt.precision:fp32}") String precision,
+                      @Value("${voice.stt.parity.max-wer-delta:0.02}") double maxWerDelta) throws Exception {
+        this.topK = topK;
+        this.snapper = new LexiconSnapper(snapCacheSize, snapMaxEdits);
+        this.windowSamples = (int) (windowSec * SAMPLE_RATE);
+        this.overlapSamples = (int) (overlapSec * SAMPLE_RATE);
+        if (overlapSamples < 0 || windowSamples - 2 * overlapSamples < SAMPLE_RATE) {
+            throw new IllegalArgumentException("voice.stt.chunk: window must exceed 2*overlap by at least 1s");
+        }
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger seq = new AtomicInteger();
+        this.chunkPool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "stt-chunk-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
 
         // --- load vocab ---
         ObjectMapper om = new ObjectMapper();
@@ -79,36 +95,24 @@ public class SttService implements AutoCloseable {
         if (blankId >= 0 && blankId < id2token.length) {
             id2token[blankId] = ""; // CTC blank
         }
+        this.decoder = new CtcDecoder(id2token, blankId);
 
-        // --- load bias artifacts ---
-        this.canon = om.readValue(
-                new ClassPathResource("voice_model/asr_canon_words.json").getInputStream(),
-                new TypeReference<Map<String, String>>() {});
-        this.phrases = readLines("voice_model/asr_phrases.txt");
-        List<String> hotwords = om.readValue(
-                new ClassPathResource("voice_model/asr_hotwords.json").getInputStream(),
-                new TypeReference<List<String>>() {});
-
-        // --- build lexicon (lowercase) ---
-        this.lexWords = buildLexicon(hotwords, phrases, canon.keySet());
-
-        // --- build prefix buckets for fast candidate narrowing ---
-        buildIndexes();
+        // --- load TorchScript (with normalization baked in), then the configured precision variant ---
+        ZooModel<NDList, NDList> fp32 = loadModel(MODEL_FP32);
+        Precision want = Precision.parse(precision);
+        this.model = want == Precision.FP32 ? fp32 : selectVariant(want, fp32, maxWerDelta);
+        this.inputType = model == fp32 || want != Precision.BF16 ? DataType.FLOAT32 : DataType.BFLOAT16;
+        this.predictor = model.newPredictor();
 
-        // --- (optional) load brand/product CSV priors if present ---
-        // Put a CSV at resources/voice_model/catalog.csv with lines like:
-        // brand,product title,frequency
-        // Microsoft,Surface Pro 9,50
-        ClassPathResource catalogCsv = new ClassPathResource("voice_model/catalog.csv");
-        if (catalogCsv.exists()) {
-            try (InputStream in = catalogCsv.getInputStream()) {
-                loadBrandProductCsv(in);
-            } catch (Exception ignore) { /* non-fatal */ }
-        }
+        // --- load bias artifacts and build prefix buckets for fast candidate narrowing ---
+        Map<String, LexiconIndex.Term> terms = new HashMap<>();
+        List<String> phrases = loadBundledLexicon(terms);
+        this.lexiconBuilder = new LexiconBuilder(terms, phrases);
+        this.lexicon.set(new SttLexicon(LexiconIndex.build(terms, MIN_PREFIX_BUCKET), PhraseIndex.build(phrases), 0));
 
         // --- warmup (optional) ---
         try (NDManager mgr = NDManager.newBaseManager(Device.cpu())) {
-            NDArray x = mgr.zeros(new Shape(1, 16000)); // 1s silence
+            NDArray x = input(mgr, new float[SAMPLE_RATE]); // 1s silence
             predictor.predict(new NDList(x));
         }
     }
@@ -116,33 +120,224 @@ public class SttService implements AutoCloseable {
     // ---------- Public API ----------
     /** Accept raw WAV bytes (16k mono PCM16) and return greedy + snapped text and simple timing. */
     public Map<String, Object> transcribe(byte[] wavBytes) throws Exception {
+        Hypothesis h = recognize(wavBytes);
+        return response(h, fix(h.greedy()));
+    }
+
+    /**
+     * Greedy model output of one request, before snapping; timestamps are System.nanoTime(). For chunked
+     * audio {@code forwardAt} also covers the per-window frame extraction, {@code decodedAt} the stitch.
+     */
+    record Hypothesis(String greedy, CtcDecoder.Frames frames, long startedAt, long parsedAt, long forwardAt, long decodedAt) {}
+
+    /** Snapped text with the end of each snapping stage (System.nanoTime()). */
+    record Fixed(String text, long startedAt, long wordsAt, long phrasesAt) {}
+
+    /** Parse + model forward + greedy decode. */
+    Hypothesis recognize(byte[] wavBytes) throws Exception {
         long t0 = System.nanoTime();
         float[] audio = WavUtil.readPcm16Mono16k(new ByteArrayInputStream(wavBytes)); // IO parse
         long t1 = System.nanoTime();
 
-        try (NDManager mgr = NDManager.newBaseManager(Device.cpu())) {
-            NDArray x = mgr.create(audio, new Shape(1, audio.length)); // [1,T]
-            NDList out = predictor.predict(new NDList(x));
-            NDArray logits = out.head();                                // typically [1,L,V] or [L,V]
-
-            String greedy = decodeGreedy(logits);
-            String fixed  = finalFix(greedy);
-
-            long t2 = System.nanoTime();
-            Map<String, Object> resp = new LinkedHashMap<>();
-            resp.put("greedy", greedy);
-            resp.put("fixed", fixed);
-            resp.put("io_ms", (t1 - t0) / 1_000_000);
-            resp.put("model_ms", (t2 - t1) / 1_000_000);
-            return resp;
+        String greedy;
+        CtcDecoder.Frames frames = null;        // only kept when top-k is configured
+        long t2;
+        if (audio.length > windowSamples) {
+            CtcDecoder.Frames stitched = inferChunked(audio);
+            t2 = System.nanoTime();
+            greedy = decoder.collapse(stitched.ids());
+            if (topK > 0) frames = stitched;
+        } else {
+            try (NDManager mgr = NDManager.newBaseManager(Device.cpu())) {
+                NDArray x = input(mgr, audio);                              // [1,T]
+                NDList out = predictor.predict(new NDList(x));
+                t2 = System.nanoTime();
+                NDArray logits = out.head();                                // typically [1,L,V] or [L,V]
+                CtcDecoder.Result r = decoder.decode(logits, topK);        // one pass over the raw logits
+                greedy = r.text();
+                frames = r.frames();
+            }
         }
+        return new Hypothesis(greedy, frames, t0, t1, t2, System.nanoTime());
+    }
+
+    /** Word + phrase snapping of a greedy hypothesis against the current lexicon. */
+    String fix(String greedy) {
+        return fixTimed(greedy).text();
+    }
+
+    /** {@link #fix} with stage timestamps, for the benchmarks. */
+    Fixed fixTimed(String greedy) {
+        long t0 = System.nanoTime();
+        SttLexicon lex = lexicon.get();                  // one consistent snapshot per request
+        String snapped = snapper.snapWords(lex, greedy); // improved word-level snapping
+        long t1 = System.nanoTime();
+        String phrased = snapper.phraseSnap(lex, snapped); // then phrase-level selection
+        return new Fixed(phrased, t0, t1, System.nanoTime());
+    }
+
+    /** The /api/voice/stt response body; model_ms covers everything after the WAV parse. */
+    Map<String, Object> response(Hypothesis h, String fixed) {
+        long t2 = System.nanoTime();
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("greedy", h.greedy());
+        resp.put("fixed", fixed);
+        resp.put("io_ms", (h.parsedAt() - h.startedAt()) / 1_000_000);
+        resp.put("model_ms", (t2 - h.parsedAt()) / 1_000_000);
+        CtcDecoder.Frames frames = h.frames();
+        if (frames != null) {
+            resp.put("topk", Map.of("k", frames.k(), "ids", frames.topIds(), "logits", frames.topLogits()));
+        }
+        return resp;
+    }
+
+    /** Hit/miss counters of the word-snap cache. */
+    public Map<String, Object> snapCacheStats() {
+        return snapper.cacheStats();
     }
 
     @Override public void close() {
+        chunkPool.shutdownNow();
         predictor.close();
         model.close();
     }
 
+    // ---------- Chunked inference ----------
+
+    /**
+     * Split long audio into windows of {@code windowSamples} that overlap by {@code overlapSamples}
+     * on each side, run them on the bounded chunk pool and return the concatenated per-frame argmax ids.
+     * Each window only keeps the frames whose centre falls inside its core span, so the overlap is
+     * used as acoustic context and every frame of the input is emitted exactly once; the CTC
+     * blank/repeat collapse then runs once over the stitched sequence, which merges tokens that
+     * straddle a window boundary.
+     */
+    private CtcDecoder.Frames inferChunked(float[] audio) throws Exception {
+        int hop = windowSamples - 2 * overlapSamples;
+        int n = (audio.length + hop - 1) / hop;
+
+        List<Future<CtcDecoder.Frames>> parts = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            int coreStart = k * hop;
+            int coreEnd = Math.min(audio.length, coreStart + hop);
+            parts.add(chunkPool.submit(() -> inferWindow(audio, coreStart, coreEnd)));
+        }
+
+        CtcDecoder.Frames[] frames = new CtcDecoder.Frames[n];
+        try {
+            for (int k = 0; k < n; k++) frames[k] = parts.get(k).get();
+        } catch (ExecutionException e) {
+            parts.forEach(f -> f.cancel(true));
+            throw e.getCause() instanceof Exception ex ? ex : e;
+        } catch (InterruptedException e) {
+            parts.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+
+        return CtcDecoder.Frames.concat(frames, Math.max(0, topK));
+    }
+
+    /** Infer one window (core span plus clamped overlap) and keep only the frames of its core. */
+    private CtcDecoder.Frames inferWindow(float[] audio, int coreStart, int coreEnd) throws Exception {
+        int from = Math.max(0, coreStart - overlapSamples);
+        int to = Math.min(audio.length, coreEnd + overlapSamples);
+        float[] slice = Arrays.copyOfRange(audio, from, to);
+
+        CtcDecoder.Frames f;
+        // Predictors are not thread-safe; a fresh one per window is cheap next to the forward pass
+        try (NDManager mgr = NDManager.newBaseManager(Device.cpu());
+             Predictor<NDList, NDList> p = model.newPredictor()) {
+            NDArray x = input(mgr, slice);
+            f = decoder.frames(p.predict(new NDList(x)).head(), topK);
+        }
+        int L = f.ids().length;
+        if (L == 0) return f;
+
+        double samplesPerFrame = (double) slice.length / L;
+        int first = (int) Math.max(0, Math.ceil((coreStart - from) / samplesPerFrame - 0.5));
+        int last = (int) Math.min(L, Math.ceil((coreEnd - from) / samplesPerFrame - 0.5));
+        return f.slice(first, Math.max(first, last));
+    }
+
+    // ---------- Model precision ----------
+
+    private static final String MODEL_FP32 = "voice_model/stt_en_with_norm.pt";
+
+    /** fp32 reference model, dynamically int8-quantized Linear/LSTM weights, or bf16 weights (needs CPU bf16 support). */
+    enum Precision {
+        FP32(MODEL_FP32), INT8("voice_model/stt_en_with_norm_int8.pt"), BF16("voice_model/stt_en_with_norm_bf16.pt");
+
+        final String resource;
+
+        Precision(String resource) { this.resource = resource; }
+
+        static Precision parse(String s) {
+            return valueOf(s.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Load the reduced-precision variant and keep it only if it holds WER parity with fp32 on the
+     * bundled fixtures; otherwise stay on fp32. The losing model is closed.
+     */
+    private ZooModel<NDList, NDList> selectVariant(Precision want, ZooModel<NDList, NDList> fp32, double maxWerDelta) throws Exception {
+        if (!new ClassPathResource(want.resource).exists()) {
+            log.warn("STT precision {} requested but {} is not bundled; using fp32", want, want.resource);
+            return fp32;
+        }
+        if (want == Precision.BF16 && !SttParity.bf16Supported()) {
+            log.warn("STT precision bf16 requested but the CPU has no native bf16 support; using fp32");
+            return fp32;
+        }
+        DataType variantInput = want == Precision.BF16 ? DataType.BFLOAT16 : DataType.FLOAT32;
+        ZooModel<NDList, NDList> variant = loadModel(want.resource);
+        try {
+            List<SttParity.Fixture> fixtures = SttParity.loadFixtures();
+            SttParity.Report r = SttParity.compare(fixtures,
+                    audio -> greedy(fp32, DataType.FLOAT32, audio),
+                    audio -> greedy(variant, variantInput, audio));
+            log.info("STT parity {} vs fp32 on {} fixtures: WER {} vs {}, RTF {} vs {}",
+                    want, r.fixtures(), String.format("%.4f", r.werVariant()), String.format("%.4f", r.werBaseline()),
+                    String.format("%.3f", r.rtfVariant()), String.format("%.3f", r.rtfBaseline()));
+            if (!r.accept(maxWerDelta)) {
+                log.warn("STT precision {} rejected (no fixtures, or WER delta above {}); using fp32", want, maxWerDelta);
+                variant.close();
+                return fp32;
+            }
+        } catch (Exception e) {
+            variant.close();
+            throw e;
+        }
+        fp32.close();
+        return variant;
+    }
+
+    private String greedy(ZooModel<NDList, NDList> m, DataType type, float[] audio) throws Exception {
+        try (NDManager mgr = NDManager.newBaseManager(Device.cpu());
+             Predictor<NDList, NDList> p = m.newPredictor()) {
+            NDArray x = mgr.create(audio, new Shape(1, audio.length));
+            if (type != DataType.FLOAT32) x = x.toType(type, false);
+            return decoder.decode(p.predict(new NDList(x)).head(), 0).text();
+        }
+    }
+
+    /** [1,T] model input in the dtype the loaded variant expects. */
+    private NDArray input(NDManager mgr, float[] audio) {
+        NDArray x = mgr.create(audio, new Shape(1, audio.length));
+        return inputType == DataType.FLOAT32 ? x : x.toType(inputType, false);
+    }
+
+    private static ZooModel<NDList, NDList> loadModel(String cp) throws Exception {
+        File pt = copyResourceToTemp(cp, ".pt");
+        Criteria<NDList, NDList> c = Criteria.builder()
+                .setTypes(NDList.class, NDList.class)
+                .optModelPath(pt.toPath())
+                .optEngine("PyTorch")
+                .build();
+        return c.loadModel();
+    }
+
     // ---------- Internals ----------
     private static File copyResourceToTemp(String cp, String suffix) throws IOException {
         File tmp = File.createTempFile("asr-", suffix);
@@ -179,19 +374,61 @@ public class SttService implements AutoCloseable {
         }
     }
 
-    private void buildIndexes() {
-        for (String w : lexWords) {
-            String lw = w.toLowerCase(Locale.ROOT);
-            String key = lw.length() >= minPrefixBucket ? lw.substring(0, minPrefixBucket) : lw;
-            byPrefix.computeIfAbsent(key, k -> new ArrayList<>()).add(lw);
-        }
-        // Optional: sort each bucket by length then alpha to make early exits more likely
-        for (List<String> lst : byPrefix.values()) {
-            lst.sort(Comparator.<String>comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+    /**
+     * Read the bundled bias artifacts (canon words, phrases, hotwords and optional CSV priors) into
+     * {@code terms} (lowercased word -> prior and casing) and return the known phrases.
+     * Phonetic codes and BK-trees are computed once from these; snapping only walks the envelope.
+     */
+    static List<String> loadBundledLexicon(Map<String, LexiconIndex.Term> terms) throws IOException {
+        ObjectMapper om = new ObjectMapper();
+        Map<String, String> canon = om.readValue(                // lower -> cased
+                new ClassPathResource("voice_model/asr_canon_words.json").getInputStream(),
+                new TypeReference<Map<String, String>>() {});
+        List<String> phrases = readLines("voice_model/asr_phrases.txt"); // known product titles (lowercased)
+        List<String> hotwords = om.readValue(
+                new ClassPathResource("voice_model/asr_hotwords.json").getInputStream(),
+                new TypeReference<List<String>>() {});
+
+        // --- build lexicon (lowercase) ---
+        List<String> lexWords = buildLexicon(hotwords, phrases, canon.keySet());
+
+        // --- (optional) load brand/product CSV priors if present ---
+        // Put a CSV at resources/voice_model/catalog.csv with lines like:
+        // brand,product title,frequency
+        // Microsoft,Surface Pro 9,50
+        Map<String, Integer> priors = new HashMap<>();        // word -> freq weight
+        ClassPathResource catalogCsv = new ClassPathResource("voice_model/catalog.csv");
+        if (catalogCsv.exists()) {
+            try (InputStream in = catalogCsv.getInputStream()) {
+                loadBrandProductCsv(in, priors);
+            } catch (Exception ignore) { /* non-fatal */ }
         }
+
+        for (String w : lexWords) terms.put(w, new LexiconIndex.Term(priors.getOrDefault(w, 0), canon.get(w)));
+        return phrases;
     }
 
-    private void loadBrandProductCsv(InputStream in) throws IOException {
+    /**
+     * Layer catalog changes onto the live lexicon. Only the affected word buckets and phrase postings
+     * are rebuilt; the new snapshot is published with a single reference swap, so in-flight requests
+     * finish on the snapshot they started with.
+     */
+    synchronized void updateCatalog(Collection<LexiconBuilder.CatalogItem> upserts, Collection<String> deletedIds) {
+        LexiconBuilder.Delta d = lexiconBuilder.apply(upserts, deletedIds);
+        if (d.isEmpty()) return;
+        SttLexicon cur = lexicon.get();
+        SttLexicon next = new SttLexicon(
+                cur.words().withChanges(d.upserts(), d.removedWords()),
+                cur.phrases().withChanges(d.addedPhrases(), d.removedPhrases()),
+                cur.version() + 1);
+        lexicon.set(next);
+        snapper.clearCache(); // entries are version-checked anyway; this just frees them early
+        log.info("STT lexicon v{}: {} words, {} phrases, {} catalog products (+{}/-{} words, +{}/-{} phrases)",
+                next.version(), next.words().size(), next.phrases().size(), lexiconBuilder.catalogSize(),
+                d.upserts().size(), d.removedWords().size(), d.addedPhrases().size(), d.removedPhrases().size());
+    }
+
+    private static void loadBrandProductCsv(InputStream in, Map<String, Integer> priors) throws IOException {
         try (BufferedReader br = new BufferedReader(new InputStreamReader(in))) {
             String line;
             while ((line = br.readLine()) != null) {
@@ -216,159 +453,4 @@ public class SttService implements AutoCloseable {
             }
         }
     }
-
-    /**
-     * Greedy CTC decode with repeat + blank collapse.
-     * Handles logits shaped [1,L,V] or [L,V]. Casts argmax to INT32 before toIntArray().
-     */
-    private String decodeGreedy(NDArray logits) {
-        NDArray scores = logits;
-
-        // Squeeze batch if present: [1,L,V] -> [L,V]
-        Shape sh = scores.getShape();
-        if (sh.dimension() == 3 && sh.get(0) == 1) {
-            scores = scores.squeeze(0);
-        }
-
-        // Now expect [L,V]
-        NDArray idsNd = scores.argMax(-1); // [L], often INT64 from PyTorch backend
-
-        // Cast to INT32 to satisfy toIntArray()
-        if (idsNd.getDataType() != DataType.INT32) {
-            idsNd = idsNd.toType(DataType.INT32, false);
-        }
-
-        int[] ids = idsNd.toIntArray();
-
-        StringBuilder sb = new StringBuilder();
-        int prev = -1;
-        for (int id : ids) {
-            if (id == blankId || id == prev) { prev = id; continue; }
-            String tok = (id >= 0 && id < id2token.length && id2token[id] != null) ? id2token[id] : "";
-            sb.append(tok);
-            prev = id;
-        }
-        return sb.toString().replace('|', ' ').replaceAll("\\s+", " ").trim();
-    }
-
-    // ---------- New snapping logic (autocomplete + fuzzy + phonetic + priors) ----------
-
-    private String snapWords(String text) {
-        if (text.isEmpty()) return text;
-        String[] words = text.split("\\s+");
-        List<String> out = new ArrayList<>(words.length);
-        for (String w : words) {
-            String fix = snapOneWord(w);
-            if (!fix.isEmpty()) out.add(fix);
-        }
-        return String.join(" ", out);
-    }
-
-    private String snapOneWord(String w) {
-        String lw = w.toLowerCase(Locale.ROOT);
-        if (lw.isEmpty()) return "";
-
-        // candidate bucket by prefix
-        String bucketKey = lw.length() >= minPrefixBucket ? lw.substring(0, minPrefixBucket) : lw;
-        List<String> bucket = byPrefix.getOrDefault(bucketKey, Collections.emptyList());
-        if (bucket.isEmpty()) return ""; // nothing plausible
-
-        String best = null;
-        double bestScore = -1.0;
-
-        // precompute phonetic for input
-        String metaIn = safeMeta(lw);
-
-        for (String cand : bucket) {
-            if (Math.abs(cand.length() - lw.length()) > maxLenDelta) continue;
-            if (!cand.isEmpty() && !lw.isEmpty() && cand.charAt(0) != lw.charAt(0)) continue;
-
-            // components
-            double editSim = editSimilarity(lw, cand);      // 0..1
-            double jw = jaroWinkler(lw, cand);              // 0..1
-            double prefixSim = prefixCoverage(lw, cand);    // 0..1
-            double phonetic = metaIn.equals(safeMeta(cand)) ? 1.0 : 0.0;
-            double prior = priorWeight(cand);               // 0..~0.2
-
-            // blend (tunable)
-            double score = 0.45 * editSim
-                    + 0.15 * jw
-                    + 0.20 * prefixSim
-                    + 0.15 * phonetic
-                    + 0.05 * prior;
-
-            // strong autocomplete bonus when cand starts with input
-            if (cand.startsWith(lw) && editSim > 0.6) score += 0.08;
-
-            if (score > bestScore) {
-                bestScore = score;
-                best = cand;
-            }
-        }
-
-        if (best != null && bestScore >= snapScore) {
-            // apply canonical casing if available
-            return canon.getOrDefault(best, canon.getOrDefault(best.toLowerCase(Locale.ROOT), best));
-        }
-        return ""; // unknown → drop (keeps titles focused)
-    }
-
-    private String phraseSnap(String text) {
-        if (text.isEmpty() || phrases.isEmpty()) return text;
-        Set<String> A = new LinkedHashSet<>(Arrays.asList(text.toLowerCase(Locale.ROOT).split("\\s+")));
-        String best = null; double bestScore = -1;
-        for (String ph : phrases) {
-            Set<String> B = new LinkedHashSet<>(Arrays.asList(ph.split("\\s+")));
-            if (Collections.disjoint(A, B)) continue; // quick prune
-            int inter = 0; for (String a : A) if (B.contains(a)) inter++;
-            double score = 100.0 * (2.0 * inter) / (A.size() + B.size()); // token-set ratio-ish
-            if (score > bestScore) { bestScore = score; best = ph; }
-        }
-        if (best != null && bestScore >= phraseSnapThreshold) {
-            StringBuilder sb = new StringBuilder();
-            for (String w : best.split("\\s+"))
-                sb.append(canon.getOrDefault(w, canon.getOrDefault(w.toLowerCase(Locale.ROOT), w))).append(' ');
-            return sb.toString().trim();
-        }
-        return text;
-    }
-
-    private String finalFix(String greedy) {
-        String snapped = snapWords(greedy); // improved word-level snapping
-        return phraseSnap(snapped);         // then phrase-level selection
-    }
-
-    // ---------- helpers for scoring ----------
-
-    private String safeMeta(String s) {
-        try { return dmeta.encode(s); } catch (Exception e) { return ""; }
-    }
-
-    private double editSimilarity(String a, String b) {
-        int dist = LD.apply(a, b);
-        int m = Math.max(1, Math.max(a.length(), b.length()));
-        return 1.0 - ((double) dist / (double) m);
-    }
-
-    private double prefixCoverage(String a, String b) {
-        int n = Math.min(a.length(), b.length());
-        int i = 0;
-        while (i < n && a.charAt(i) == b.charAt(i)) i++;
-        return n == 0 ? 0 : (double) i / (double) n; // 0..1 of shared prefix
-    }
-
-    private double jaroWinkler(String a, String b) {
-        try {
-            Double v = jws.apply(a, b);
-            return v == null ? 0.0 : v;
-        } catch (Exception e) {
-            return 0.0;
-        }
-    }
-
-    private double priorWeight(String cand) {
-        int f = priors.getOrDefault(cand, 0);
-        // small diminishing returns boost (0..~0.2)
-        return Math.min(0.2, Math.log1p(f) / 10.0);
-    }
 }
@@ -0,0 +1,144 @@
+package com.ai.group.Artificial.voice;
+
+import com.ai.group.Artificial.nlp.TextClassifier;
+import com.ai.group.Artificial.nlp.dto.ClassificationResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Voice search in one call: STT, intent classification of the snapped text and, for category and brand
+ * intents, the electronics-store product search. The store query is started speculatively from the greedy
+ * hypothesis while snapping runs; if the snapped text resolves to the same query the in-flight result is
+ * used, otherwise it is cancelled and the query is re-issued.
+ */
+@Slf4j
+@Service
+public class VoiceSearchService implements AutoCloseable {
+
+    private final SttService stt;
+    private final TextClassifier classifier;
+    private final RestTemplate restTemplate;
+    private final String storeBaseUrl;
+    private final int pageSize;
+    private final long timeoutMs;
+    private final ExecutorService searchPool;
+
+    /** What gets sent to /products/search; equal queries share one speculative call. */
+    record StoreQuery(String category, String query) {}
+
+    public VoiceSearchService(SttService stt,
+                              TextClassifier classifier,
+                              @Value("${voice.search.base-url:${voice.lexicon.catalog.base-url:}}") String storeBaseUrl,
+                              @Value("${voice.search.page-size:20}") int pageSize,
+                              @Value("${voice.search.timeout-ms:3000}") long timeoutMs,
+                              @Value("${voice.search.parallelism:8}") int parallelism) {
+        this.stt = stt;
+        this.classifier = classifier;
+        this.storeBaseUrl = storeBaseUrl;
+        this.pageSize = pageSize;
+        this.timeoutMs = timeoutMs;
+
+        SimpleClientHttpRequestFactory rf = new SimpleClientHttpRequestFactory();
+        rf.setConnectTimeout((int) timeoutMs);
+        rf.setReadTimeout((int) timeoutMs);
+        this.restTemplate = new RestTemplate(rf);
+
+        AtomicInteger seq = new AtomicInteger();
+        this.searchPool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "voice-search-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public Map<String, Object> search(byte[] wavBytes, UUID userId) throws Exception {
+        SttService.Hypothesis h = stt.recognize(wavBytes);
+
+        // speculative: classify the raw hypothesis and start the store call before snapping
+        TextClassifier.Intent guess = classifier.resolve(h.greedy());
+        StoreQuery speculative = storeQuery(guess);
+        Future<List<Map<String, Object>>> inFlight = speculative == null ? null : searchPool.submit(() -> fetch(speculative));
+
+        String fixed = stt.fix(h.greedy());
+        TextClassifier.Intent intent = fixed.equals(h.greedy()) ? guess : classifier.resolve(fixed);
+        StoreQuery query = storeQuery(intent);
+
+        long s0 = System.nanoTime();
+        boolean reused = query != null && query.equals(speculative);
+        if (!reused && inFlight != null) inFlight.cancel(true);
+        List<Map<String, Object>> products;
+        if (query == null) {
+            products = List.of();
+        } else if (reused) {
+            products = await(inFlight);
+        } else {
+            products = fetch(query);
+        }
+        long s1 = System.nanoTime();
+
+        ClassificationResponse classification = classifier.respond(userId, fixed, intent);
+
+        Map<String, Object> resp = stt.response(h, fixed);
+        resp.put("intent", intent.code());
+        resp.put("category", intent.category());
+        resp.put("brand", intent.brand());
+        resp.put("classification", classification);
+        resp.put("products", products);
+        resp.put("search_ms", (s1 - s0) / 1_000_000);   // time left waiting on the store after snapping
+        resp.put("speculative_hit", reused);
+        return resp;
+    }
+
+    @Override public void close() {
+        searchPool.shutdownNow();
+    }
+
+    private StoreQuery storeQuery(TextClassifier.Intent intent) {
+        if (!StringUtils.hasText(storeBaseUrl)) return null;
+        if (intent.code() == TextClassifier.HELP_CATEGORY && StringUtils.hasText(intent.category())) {
+            return new StoreQuery(intent.category(), null);
+        }
+        if (intent.code() == TextClassifier.HELP_REQUEST_BRAND && StringUtils.hasText(intent.brand())) {
+            return new StoreQuery(null, intent.brand());
+        }
+        return null;
+    }
+
+    private List<Map<String, Object>> await(Future<List<Map<String, Object>>> f) throws InterruptedException {
+        try {
+            return f.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            f.cancel(true);
+            log.warn("Speculative product search failed: {}", e.toString());
+            return List.of();
+        }
+    }
+
+    /** Store search is best effort: a failure leaves the transcript and classification usable. */
+    private List<Map<String, Object>> fetch(StoreQuery q) {
+        UriComponentsBuilder b = UriComponentsBuilder.fromUriString(storeBaseUrl).path("/products/search")
+                .queryParam("page", 0)
+                .queryParam("size", pageSize);
+        if (q.category() != null) b.queryParam("category", q.category());
+        if (q.query() != null) b.queryParam("query", q.query());
+        try {
+            List<Map<String, Object>> items = restTemplate.exchange(b.build().encode().toUri(), HttpMethod.GET, null,
+                    new ParameterizedTypeReference<List<Map<String, Object>>>() {}).getBody();
+            return items == null ? List.of() : items;
+        } catch (Exception e) {
+            log.warn("Product search {} failed: {}", q, e.toString());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ai.group.Artificial.voice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU of lowercased greedy word -> snapped word ("" = dropped).
+ * Split into independently locked segments so concurrent requests rarely contend. Every entry
+ * remembers the lexicon version it was computed against; a lookup under a newer version is a miss,
+ * so a lexicon swap invalidates the cache without racing in-flight writers.
+ */
+final class WordSnapCache {
+
+    private static final int SEGMENTS = 16;
+
+    private record Entry(long version, String value) {}
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    WordSnapCache(int maxSize) {
+        int perSegment = Math.max(1, maxSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment(perSegment);
+    }
+
+    /** @return the cached result for this lexicon version, or null */
+    String get(String word, long version) {
+        Segment s = segment(word);
+        Entry e;
+        synchronized (s) { e = s.get(word); }
+        if (e != null && e.version == version) {
+            hits.increment();
+            return e.value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    void put(String word, long version, String value) {
+        Segment s = segment(word);
+        synchronized (s) {
+            Entry cur = s.get(word);
+            if (cur == null || cur.version <= version) s.put(word, new Entry(version, value));
+        }
+    }
+
+    void clear() {
+        for (Segment s : segments) synchronized (s) { s.clear(); }
+    }
+
+    Map<String, Object> stats() {
+        long h = hits.sum(), m = misses.sum();
+        int size = 0;
+        for (Segment s : segments) synchronized (s) { size += s.size(); }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("size", size);
+        out.put("hits", h);
+        out.put("misses", m);
+        out.put("evictions", evictions.sum());
+        out.put("hit_rate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        return out;
+    }
+
+    private Segment segment(String word) {
+        int h = word.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private final class Segment extends LinkedHashMap<String, Entry> {
+        private final int max;
+
+        Segment(int max) {
+            super(16, 0.75f, true); // access order
+            this.max = max;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= max) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+}
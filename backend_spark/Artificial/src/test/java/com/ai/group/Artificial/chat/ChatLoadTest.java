@@ -0,0 +1,291 @@
+package com.ai.group.Artificial.chat;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.*;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.*;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chat load harness, run with {@code mvn test -Pload} against a running agents service
+ * ({@code -Dload.url}, default http://localhost:8082). Syncs {@code load.users} users and {@code load.admins}
+ * admins into the directory, opens one support request per user and has the admins accept them round-robin,
+ * then connects one STOMP session per participant over SockJS and has both sides of every chat send
+ * {@code load.rate} messages per second for {@code load.seconds}. Each message carries its send time, so the
+ * peer records send-to-receive latency. Latency percentiles, throughput, session connect time and error
+ * counts go to {@code target/load/chat-report.properties}; {@code -Dload.max-p99-ms} and
+ * {@code -Dload.max-loss} turn them into assertions. Tokens are minted with the shared HS256 secret from
+ * application.properties. Skipped when the service is not reachable.
+ */
+@Tag("load")
+class ChatLoadTest {
+
+    private static final Path REPORT = Path.of("target", "load", "chat-report.properties");
+
+    private final String url = System.getProperty("load.url", "http://localhost:8082");
+    private final int users = Integer.getInteger("load.users", 50);
+    private final int admins = Integer.getInteger("load.admins", 5);
+    private final double rate = Double.parseDouble(System.getProperty("load.rate", "1"));
+    private final int seconds = Integer.getInteger("load.seconds", 30);
+
+    private final RestTemplate http = new RestTemplate();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final Latencies latencies = new Latencies();
+
+    private record Participant(UUID id, String email, String token, boolean admin) {}
+
+    private record Chat(UUID requestId, Participant user, Participant admin) {}
+
+    @Test
+    void chatUnderLoad() throws Exception {
+        Assumptions.assumeTrue(reachable(), "Agents service not reachable at " + url + "; skipping chat load");
+
+        Properties app = new Properties();
+        try (InputStream in = new ClassPathResource("application.properties").getInputStream()) { app.load(in); }
+        JwtEncoder jwt = new NimbusJwtEncoder(new ImmutableSecret<>(
+                new SecretKeySpec(Base64.getDecoder().decode(app.getProperty("app.auth.token-secret")), "HmacSHA256")));
+
+        List<Participant> userList = new ArrayList<>(), adminList = new ArrayList<>();
+        for (int i = 0; i < users; i++) userList.add(participant(jwt, "load-user", false));
+        for (int i = 0; i < admins; i++) adminList.add(participant(jwt, "load-admin", true));
+        syncDirectory(app.getProperty("sync.shared-secret"), userList, adminList);
+
+        // Chats exist and are accepted before anyone is online, so auto-dispatch stays out of the way
+        List<Chat> chats = new ArrayList<>();
+        for (int i = 0; i < userList.size(); i++) {
+            Participant u = userList.get(i), a = adminList.get(i % adminList.size());
+            UUID requestId = UUID.fromString((String) post("/api/admin-requests", u, Map.of("initialMessage", "load test")).get("id"));
+            post("/api/admin-requests/" + requestId + "/accept", a, Map.of());
+            chats.add(new Chat(requestId, u, a));
+        }
+
+        WebSocketStompClient stomp = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stomp.setMessageConverter(new MappingJackson2MessageConverter());
+
+        Map<UUID, StompSession> sessions = new ConcurrentHashMap<>();
+        long c0 = System.nanoTime();
+        for (Participant p : concat(userList, adminList)) sessions.put(p.id(), connect(stomp, p));
+        double connectMs = (System.nanoTime() - c0) / 1e6 / sessions.size();
+
+        for (Chat c : chats) {
+            subscribe(sessions.get(c.user().id()), c, c.user().id());
+            subscribe(sessions.get(c.admin().id()), c, c.admin().id());
+        }
+        Thread.sleep(500); // let subscriptions settle
+
+        ScheduledExecutorService senders = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        long periodNanos = (long) (1e9 / rate);
+        Random jitter = new Random(7);
+        for (Chat c : chats) {
+            for (Participant from : List.of(c.user(), c.admin())) {
+                StompSession s = sessions.get(from.id());
+                senders.scheduleAtFixedRate(() -> send(s, c.requestId()),
+                        jitter.nextLong(periodNanos), periodNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        long t0 = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        senders.shutdownNow();
+        long sendWindowNanos = System.nanoTime() - t0;
+        Thread.sleep(2000); // in-flight deliveries
+
+        sessions.values().forEach(s -> { try { s.disconnect(); } catch (Exception ignore) {} });
+        stomp.stop();
+        for (Chat c : chats) {
+            try { post("/api/admin-requests/" + c.requestId() + "/close", c.user(), Map.of()); } catch (Exception ignore) {}
+        }
+
+        Map<String, Double> report = new TreeMap<>();
+        double windowSec = sendWindowNanos / 1e9;
+        long s = sent.sum(), r = received.sum();
+        report.put("sessions", (double) sessions.size());
+        report.put("chats", (double) chats.size());
+        report.put("connect_ms_per_session", connectMs);
+        report.put("sent", (double) s);
+        report.put("received", (double) r);
+        report.put("loss", s == 0 ? 0 : Math.max(0, 1 - (double) r / s));
+        report.put("throughput_msgs_per_sec", r / windowSec);
+        report.put("errors", (double) errors.sum());
+        report.put("latency_ms.p50", latencies.percentile(0.50));
+        report.put("latency_ms.p90", latencies.percentile(0.90));
+        report.put("latency_ms.p99", latencies.percentile(0.99));
+        report.put("latency_ms.p999", latencies.percentile(0.999));
+        report.put("latency_ms.max", latencies.percentile(1.0));
+        writeReport(report);
+
+        String maxP99 = System.getProperty("load.max-p99-ms");
+        if (maxP99 != null) {
+            assertTrue(report.get("latency_ms.p99") <= Double.parseDouble(maxP99), "p99 over " + maxP99 + " ms: " + report);
+        }
+        String maxLoss = System.getProperty("load.max-loss");
+        if (maxLoss != null) {
+            assertTrue(report.get("loss") <= Double.parseDouble(maxLoss), "loss over " + maxLoss + ": " + report);
+        }
+    }
+
+    // ---------- STOMP ----------
+
+    private StompSession connect(WebSocketStompClient stomp, Participant p) throws Exception {
+        StompHeaders connect = new StompHeaders();
+        connect.add("Authorization", "Bearer " + p.token());
+        return stomp.connectAsync(url + "/ws", new WebSocketHttpHeaders(), connect, new StompSessionHandlerAdapter() {
+            @Override
+            public void handleException(StompSession s, StompCommand cmd, StompHeaders h, byte[] payload, Throwable ex) {
+                errors.increment();
+            }
+
+            @Override
+            public void handleTransportError(StompSession s, Throwable ex) {
+                errors.increment();
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                errors.increment(); // ERROR frames
+            }
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    private void subscribe(StompSession session, Chat chat, UUID self) {
+        session.subscribe("/user/queue/chat/" + chat.requestId(), new StompFrameHandler() {
+            @Override public Type getPayloadType(StompHeaders headers) { return Map.class; }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                Map<?, ?> m = (Map<?, ?>) payload;
+                if (self.toString().equals(String.valueOf(m.get("senderId")))) return; // own echo
+                String body = String.valueOf(m.get("body"));
+                if (!body.startsWith("lt:")) return;
+                received.increment();
+                latencies.add(System.nanoTime() - Long.parseLong(body.substring(3)));
+            }
+        });
+    }
+
+    private void send(StompSession session, UUID requestId) {
+        try {
+            synchronized (session) {
+                session.send("/app/chat/" + requestId, Map.of("body", "lt:" + System.nanoTime()));
+            }
+            sent.increment();
+        } catch (Exception e) {
+            errors.increment();
+        }
+    }
+
+    // ---------- HTTP setup ----------
+
+    private Participant participant(JwtEncoder jwt, String prefix, boolean admin) {
+        UUID id = UUID.randomUUID();
+        String email = prefix + "-" + id + "@load.test";
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .subject(email)
+                .claim("id", id.toString())
+                .claim("name", prefix)
+                .issuedAt(now)
+                .expiresAt(now.plus(1, ChronoUnit.HOURS))
+                .build();
+        String token = jwt.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+        return new Participant(id, email, token, admin);
+    }
+
+    private void syncDirectory(String secret, List<Participant> userList, List<Participant> adminList) {
+        StringBuilder ndjson = new StringBuilder();
+        for (Participant p : concat(userList, adminList)) {
+            ndjson.append(String.format("{\"id\":\"%s\",\"email\":\"%s\",\"name\":\"%s\",\"role\":\"%s\",\"tokenVersion\":0,\"delete\":false}%n",
+                    p.id(), p.email(), p.email(), p.admin() ? "ADMIN" : "USER"));
+        }
+        HttpHeaders h = new HttpHeaders();
+        h.setBearerAuth(secret);
+        h.setContentType(MediaType.APPLICATION_NDJSON);
+        http.exchange(url + "/internal/sync/users/bulk", HttpMethod.POST, new HttpEntity<>(ndjson.toString(), h), String.class);
+    }
+
+    private Map<?, ?> post(String path, Participant as, Object body) {
+        HttpHeaders h = new HttpHeaders();
+        h.setBearerAuth(as.token());
+        h.setContentType(MediaType.APPLICATION_JSON);
+        try {
+            return http.exchange(url + path, HttpMethod.POST, new HttpEntity<>(body, h), Map.class).getBody();
+        } catch (RuntimeException e) {
+            errors.increment();
+            throw e;
+        }
+    }
+
+    private boolean reachable() {
+        try {
+            HttpURLConnection c = (HttpURLConnection) URI.create(url + "/ws/info").toURL().openConnection();
+            c.setConnectTimeout(1000);
+            c.setReadTimeout(1000);
+            return c.getResponseCode() < 500;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static <T> List<T> concat(List<T> a, List<T> b) {
+        List<T> out = new ArrayList<>(a);
+        out.addAll(b);
+        return out;
+    }
+
+    private static void writeReport(Map<String, Double> report) throws Exception {
+        StringBuilder sb = new StringBuilder("# Chat load report\n");
+        report.forEach((k, v) -> {
+            sb.append(k).append('=').append(String.format(Locale.ROOT, "%.3f", v)).append('\n');
+            System.out.printf("[load] %s = %.3f%n", k, v);
+        });
+        Files.createDirectories(REPORT.getParent());
+        Files.writeString(REPORT, sb);
+    }
+
+    /** Send-to-receive latencies in nanoseconds; percentiles in milliseconds. */
+    private static final class Latencies {
+        private long[] values = new long[1 << 16];
+        private int size;
+
+        synchronized void add(long nanos) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = nanos;
+        }
+
+        synchronized double percentile(double q) {
+            if (size == 0) return 0;
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int i = (int) Math.min(size - 1, Math.ceil(q * size) - 1);
+            return sorted[Math.max(0, i)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.ai.group.Artificial.chat.service;
+
+import com.ai.group.Artificial.chat.model.ChatMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link ChatMessageWriter} against an in-memory JDBC stand-in: which futures complete when a batch
+ * fails, and the order of {@code createdAt} stamps.
+ */
+class ChatMessageWriterTest {
+
+    /** Rows in the order they were committed; a batch containing a body "bad" fails as a whole. */
+    private final List<Object[]> committed = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger transientFailures = new AtomicInteger();
+
+    private final JdbcTemplate jdbc = new JdbcTemplate() {
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> rows, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            List<Object[]> values = new ArrayList<>();
+            for (T row : rows) values.add(values(pss, row));
+            if (transientFailures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new TransientDataAccessResourceException("connection reset");
+            }
+            if (values.stream().anyMatch(v -> "bad".equals(v[3]))) {
+                throw new DataIntegrityViolationException("violates foreign key constraint");
+            }
+            committed.addAll(values);
+            return new int[][]{new int[values.size()]};
+        }
+    };
+
+    private final TransactionTemplate tx = new TransactionTemplate(new PlatformTransactionManager() {
+        @Override public TransactionStatus getTransaction(TransactionDefinition definition) { return new SimpleTransactionStatus(); }
+        @Override public void commit(TransactionStatus status) {}
+        @Override public void rollback(TransactionStatus status) {}
+    });
+
+    private ChatMessageWriter writer;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (writer != null) writer.stop();
+    }
+
+    @Test
+    void badRowFailsOnlyItsOwnFuture() throws Exception {
+        writer = start("write-behind", 100);
+        UUID chatA = UUID.randomUUID(), chatB = UUID.randomUUID();
+        List<CompletableFuture<ChatMessage>> good = new ArrayList<>();
+        good.add(writer.submit(message(chatA, "hello")));
+        good.add(writer.submit(message(chatB, "hi")));
+        CompletableFuture<ChatMessage> bad = writer.submit(message(chatA, "bad"));
+        good.add(writer.submit(message(chatB, "still there?")));
+
+        for (CompletableFuture<ChatMessage> f : good) assertNotNull(f.get(5, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DataIntegrityViolationException.class, e.getCause());
+
+        assertEquals(List.of("hello", "hi", "still there?"), committed.stream().map(v -> v[3]).toList());
+        assertEquals(3L, writer.stats().get("written"));
+        assertEquals(1L, writer.stats().get("failed"));
+    }
+
+    @Test
+    void transientFailureIsRetriedAsOneBatch() throws Exception {
+        transientFailures.set(1);
+        writer = start("write-behind", 100);
+        CompletableFuture<ChatMessage> f = writer.submit(message(UUID.randomUUID(), "hello"));
+
+        assertNotNull(f.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, writer.stats().get("retries"));
+        assertEquals(0L, writer.stats().get("failed"));
+    }
+
+    @Test
+    void durableModeReportsTheFailedMessage() {
+        writer = start("durable", 100);
+        UUID chat = UUID.randomUUID();
+
+        assertEquals("ok", writer.persist(message(chat, "ok")).getBody());
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> writer.persist(message(chat, "bad")));
+        assertInstanceOf(DataIntegrityViolationException.class, e.getCause());
+    }
+
+    @Test
+    void stampsStrictlyIncreaseInQueueOrder() throws Exception {
+        writer = start("write-behind", 7); // small batches: many flushes, still one commit order
+        int threads = 8, perThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<List<CompletableFuture<ChatMessage>>>> senders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            senders.add(pool.submit(() -> {
+                List<CompletableFuture<ChatMessage>> out = new ArrayList<>();
+                UUID chat = UUID.randomUUID();
+                for (int i = 0; i < perThread; i++) out.add(writer.submit(message(chat, "m" + i)));
+                return out;
+            }));
+        }
+        for (var s : senders) for (var f : s.get(10, TimeUnit.SECONDS)) f.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(threads * perThread, committed.size());
+        Instant prev = Instant.EPOCH;
+        for (Object[] row : committed) {
+            Instant at = ((Timestamp) row[4]).toInstant();
+            assertTrue(at.isAfter(prev), "created_at " + at + " committed after " + prev);
+            assertEquals(0, at.getNano() % 1000, "created_at is not whole microseconds: " + at);
+            prev = at;
+        }
+    }
+
+    private ChatMessageWriter start(String mode, int batchSize) {
+        ChatMessageWriter w = new ChatMessageWriter(jdbc, tx, 10_000, batchSize, 20, 1000, 3, mode, 5000);
+        w.start();
+        return w;
+    }
+
+    private static ChatMessage message(UUID chat, String body) {
+        return ChatMessage.builder().requestId(chat).senderId(UUID.randomUUID()).body(body).build();
+    }
+
+    /** The five insert parameters the writer sets for one row. */
+    private static <T> Object[] values(ParameterizedPreparedStatementSetter<T> pss, T row) {
+        Object[] v = new Object[5];
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set")) v[(int) args[0] - 1] = args[1];
+                    return null;
+                });
+        try {
+            pss.setValues(ps, row);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return v;
+    }
+}
@@ -0,0 +1,66 @@
+package com.ai.group.Artificial.voice;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parity of the capped BK-tree radius ({@code voice.stt.snap.max-edits}) with the uncapped score envelope
+ * on the long words of the bundled lexicon, which is where the cap is tighter than the envelope.
+ */
+class LexiconSnapperTest {
+
+    private static final int MAX_EDITS = SttStageBenchmark.SNAP_MAX_EDITS;
+
+    private static SttLexicon lexicon;
+    private static List<String> longWords;
+
+    @BeforeAll
+    static void load() throws Exception {
+        Map<String, LexiconIndex.Term> terms = new HashMap<>();
+        List<String> phrases = SttService.loadBundledLexicon(terms);
+        lexicon = new SttLexicon(LexiconIndex.build(terms, SttService.MIN_PREFIX_BUCKET), PhraseIndex.build(phrases), 0);
+        longWords = terms.keySet().stream().filter(w -> w.length() >= 8).sorted().toList();
+    }
+
+    @Test
+    void cappedRadiusSnapsLongWordsLikeTheEnvelope() {
+        assertTrue(longWords.size() >= 10, "bundled lexicon has too few long words: " + longWords.size());
+        LexiconSnapper envelope = new LexiconSnapper(0, 0);
+        LexiconSnapper capped = new LexiconSnapper(0, MAX_EDITS);
+        Random rnd = new Random(7);
+        List<String> differ = new ArrayList<>();
+        int snappedBeyondCap = 0;
+        for (int edits = 1; edits <= 2 * MAX_EDITS; edits++) {
+            for (String w : longWords) {
+                for (int t = 0; t < 20; t++) {
+                    String typo = typo(w, edits, rnd);
+                    String expected = envelope.snapWords(lexicon, typo);
+                    String actual = capped.snapWords(lexicon, typo);
+                    if (!expected.equals(actual)) differ.add(typo + " -> " + expected + " (capped: " + actual + ")");
+                    if (edits > MAX_EDITS && !expected.isEmpty()) snappedBeyondCap++;
+                }
+            }
+        }
+        assertTrue(snappedBeyondCap > 0, "no typo with more than " + MAX_EDITS + " edits snapped; test exercises nothing");
+        assertEquals(List.of(), differ);
+    }
+
+    /** {@code edits} random drops, doubled letters or substitutions after the first letter (the bucket key). */
+    private static String typo(String w, int edits, Random rnd) {
+        StringBuilder sb = new StringBuilder(w);
+        for (int i = 0; i < edits; i++) {
+            int at = 1 + rnd.nextInt(sb.length() - 1);
+            switch (rnd.nextInt(3)) {
+                case 0 -> { if (sb.length() > 3) sb.deleteCharAt(at); }
+                case 1 -> sb.insert(at, sb.charAt(at));
+                default -> sb.setCharAt(at, (char) ('a' + rnd.nextInt(26)));
+            }
+        }
+        return sb.toString();
+    }
+}
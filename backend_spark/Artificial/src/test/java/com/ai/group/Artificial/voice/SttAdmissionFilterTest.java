@@ -0,0 +1,147 @@
+package com.ai.group.Artificial.voice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Budgets of {@link SttAdmissionFilter}. With rtf 1 a request costs its audio seconds: global budget 10,
+ * per-client 6, long recordings (over 3 s) share half the global budget. Held requests sit in the filter
+ * chain until released, keeping their reservation.
+ */
+class SttAdmissionFilterTest {
+
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private final List<Held> held = new ArrayList<>();
+
+    private record Held(CountDownLatch release, Future<MockHttpServletResponse> response) {
+        int finish() throws Exception {
+            release.countDown();
+            return response.get(5, TimeUnit.SECONDS).getStatus();
+        }
+    }
+
+    @AfterEach
+    void releaseAll() {
+        held.forEach(h -> h.release().countDown());
+        pool.shutdownNow();
+    }
+
+    @Test
+    void rejectsRecordingsOverTheMaximumLength() throws Exception {
+        SttAdmissionFilter filter = filter(0);
+        MockHttpServletResponse res = call(filter, "10.0.0.1", 101);
+        assertEquals(413, res.getStatus());
+        assertNull(res.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void clientBudgetLimitsOneClientOnly() throws Exception {
+        SttAdmissionFilter filter = filter(0);
+        hold(filter, "10.0.0.1", 3);
+        hold(filter, "10.0.0.1", 3);
+
+        MockHttpServletResponse res = call(filter, "10.0.0.1", 3);
+        assertEquals(429, res.getStatus());
+        assertTrue(Long.parseLong(res.getHeader(HttpHeaders.RETRY_AFTER)) >= 1);
+        assertEquals(200, call(filter, "10.0.0.2", 3).getStatus());
+    }
+
+    @Test
+    void globalBudgetLimitsAllClients() throws Exception {
+        SttAdmissionFilter filter = filter(0);
+        hold(filter, "10.0.0.1", 3);
+        hold(filter, "10.0.0.2", 3);
+        hold(filter, "10.0.0.3", 3);
+
+        MockHttpServletResponse res = call(filter, "10.0.0.4", 3);
+        assertEquals(429, res.getStatus());
+        assertNotNull(res.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, call(filter, "10.0.0.4", 1).getStatus());
+    }
+
+    @Test
+    void longRecordingsStayInTheirShare() throws Exception {
+        SttAdmissionFilter filter = filter(0);
+        hold(filter, "10.0.0.1", 4);
+
+        assertEquals(429, call(filter, "10.0.0.2", 4).getStatus()); // 8 > long share of 5
+        assertEquals(200, call(filter, "10.0.0.3", 3).getStatus()); // short work still fits globally
+    }
+
+    @Test
+    void oversizedRequestReservesAndReleasesOneBudget() throws Exception {
+        SttAdmissionFilter filter = filter(0);
+        Held big = hold(filter, "10.0.0.1", 50); // holds the long share (5) and the client budget (6)
+
+        assertEquals(429, call(filter, "10.0.0.2", 4).getStatus());
+        assertEquals(429, call(filter, "10.0.0.1", 1).getStatus());
+        assertEquals(200, call(filter, "10.0.0.2", 3).getStatus());
+
+        assertEquals(200, big.finish());
+        // everything it reserved came back: a full long share and a full client budget fit again
+        hold(filter, "10.0.0.1", 5);
+        assertEquals(200, call(filter, "10.0.0.3", 3).getStatus());
+        assertEquals(429, call(filter, "10.0.0.1", 2).getStatus());
+    }
+
+    @Test
+    void shortRequestQueuesForBudgetFreedMeanwhile() throws Exception {
+        SttAdmissionFilter filter = filter(5_000);
+        Held first = hold(filter, "10.0.0.1", 3);
+        hold(filter, "10.0.0.1", 3);
+
+        Future<MockHttpServletResponse> waiting = pool.submit(() -> call(filter, "10.0.0.1", 3));
+        Thread.sleep(100);
+        assertFalse(waiting.isDone());
+        first.finish();
+        assertEquals(200, waiting.get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    private static SttAdmissionFilter filter(long queueMs) {
+        return new SttAdmissionFilter(1.0, 10, 6, 0.5, 3, 100, queueMs);
+    }
+
+    private static MockHttpServletRequest request(String ip, double audioSec) {
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/voice/stt");
+        req.setServletPath("/api/voice/stt");
+        req.setRemoteAddr(ip);
+        req.setContent(new byte[(int) (audioSec * 16000 * 2)]);
+        return req;
+    }
+
+    private static MockHttpServletResponse call(SttAdmissionFilter filter, String ip, double audioSec) throws Exception {
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        filter.doFilter(request(ip, audioSec), res, (rq, rs) -> {});
+        return res;
+    }
+
+    /** Admit a request and keep it in the chain (holding its reservation) until released. */
+    private Held hold(SttAdmissionFilter filter, String ip, double audioSec) throws Exception {
+        CountDownLatch entered = new CountDownLatch(1), release = new CountDownLatch(1);
+        Future<MockHttpServletResponse> f = pool.submit(() -> {
+            MockHttpServletResponse res = new MockHttpServletResponse();
+            filter.doFilter(request(ip, audioSec), res, (rq, rs) -> {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            return res;
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS), "request of " + audioSec + "s from " + ip + " was not admitted");
+        Held h = new Held(release, f);
+        held.add(h);
+        return h;
+    }
+}
@@ -0,0 +1,97 @@
+package com.ai.group.Artificial.voice;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic inputs for the STT benchmarks: 16 kHz mono PCM16 WAVs of a given length and noise level
+ * (a voiced, syllable-modulated harmonic signal, so the model sees speech-like energy rather than silence),
+ * CTC logits with a realistic blank ratio, and greedy-style transcripts built from the bundled phrases
+ * with ASR-like typos. Same seed, same bytes, so runs are comparable against the baseline.
+ */
+final class SttBenchFixtures {
+
+    /** Recording lengths (seconds) exercised by the suite: voice searches up to chunked long uploads. */
+    static final int[] SECONDS = {1, 3, 8, 30, 120};
+    /** Signal-to-noise ratios (dB) exercised by the suite; 0 = noise as loud as the voice. */
+    static final int[] SNR_DB = {30, 10, 0};
+
+    static final int SAMPLE_RATE = 16000;
+    static final int FRAMES_PER_SEC = 50;       // 20 ms CTC frames
+
+    private SttBenchFixtures() {}
+
+    static byte[] wav(int seconds, int snrDb, long seed) {
+        Random rnd = new Random(seed);
+        int n = seconds * SAMPLE_RATE;
+        double noiseAmp = 0.3 * Math.pow(10, -snrDb / 20.0);
+        ByteBuffer pcm = ByteBuffer.allocate(n * 2).order(ByteOrder.LITTLE_ENDIAN);
+        double f0 = 110 + rnd.nextInt(90);
+        for (int i = 0; i < n; i++) {
+            double t = (double) i / SAMPLE_RATE;
+            if (i % (SAMPLE_RATE / 4) == 0) f0 = 110 + rnd.nextInt(90);   // new "syllable" pitch every 250 ms
+            double env = 0.5 * (1 - Math.cos(2 * Math.PI * 4 * t));        // ~4 syllables per second
+            double v = 0;
+            for (int h = 1; h <= 5; h++) v += Math.sin(2 * Math.PI * f0 * h * t) / h;
+            double x = 0.3 * env * v / 2.3 + noiseAmp * rnd.nextGaussian();
+            pcm.putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(x * 32767))));
+        }
+        return riff(pcm.array());
+    }
+
+    /** Row-major [L,V] logits where ~70% of frames favour the blank, like real CTC output. */
+    static FloatBuffer logits(int seconds, int vocab, int blankId, long seed) {
+        Random rnd = new Random(seed);
+        int L = seconds * FRAMES_PER_SEC;
+        float[] out = new float[L * vocab];
+        for (int t = 0; t < L; t++) {
+            int top = rnd.nextDouble() < 0.7 ? blankId : rnd.nextInt(vocab);
+            for (int v = 0; v < vocab; v++) out[t * vocab + v] = (float) rnd.nextGaussian();
+            out[t * vocab + top] += 8f;
+        }
+        return FloatBuffer.wrap(out);
+    }
+
+    /** Greedy-like transcripts: bundled phrases with dropped/doubled/swapped letters and stray words. */
+    static List<String> transcripts(List<String> phrases, int count, long seed) {
+        Random rnd = new Random(seed);
+        List<String> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (String w : phrases.get(rnd.nextInt(phrases.size())).split("\\s+")) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(typo(w, rnd));
+            }
+            if (rnd.nextInt(4) == 0) sb.append(" please");
+            out.add(sb.toString());
+        }
+        return out;
+    }
+
+    private static String typo(String w, Random rnd) {
+        if (w.length() < 3 || rnd.nextInt(3) != 0) return w;
+        int i = 1 + rnd.nextInt(w.length() - 2);
+        return switch (rnd.nextInt(3)) {
+            case 0 -> w.substring(0, i) + w.substring(i + 1);                                   // drop
+            case 1 -> w.substring(0, i) + w.charAt(i) + w.substring(i);                         // double
+            default -> w.substring(0, i) + w.charAt(i + 1) + w.charAt(i) + w.substring(i + 2);  // swap
+        };
+    }
+
+    private static byte[] riff(byte[] pcm) {
+        ByteBuffer h = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN);
+        h.put("RIFF".getBytes()).putInt(36 + pcm.length).put("WAVE".getBytes());
+        h.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(SAMPLE_RATE).putInt(SAMPLE_RATE * 2).putShort((short) 2).putShort((short) 16);
+        h.put("data".getBytes()).putInt(pcm.length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(44 + pcm.length);
+        out.writeBytes(h.array());
+        out.writeBytes(pcm);
+        return out.toByteArray();
+    }
+}
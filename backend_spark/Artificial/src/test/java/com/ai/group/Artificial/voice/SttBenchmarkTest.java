@@ -0,0 +1,173 @@
+package com.ai.group.Artificial.voice;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * STT performance guardrail, run with {@code mvn test -Pbench}.
+ * Measures the pure-Java stages through {@link SttStageBenchmark} and the full {@link SttService}
+ * (real-time factor, throughput and allocations per request at 1..N concurrent callers), writes
+ * everything to {@code target/bench/stt-report.properties}. Absolute timings only mean something on the
+ * host that produced them, so the regression gate is opt-in: save the report of a run on the base revision
+ * and pass it as {@code -Dbench.baseline=<file>}; the test then fails if a metric regressed more than
+ * {@code -Dbench.tolerance} (default 0.25) against it. Metrics missing from the baseline are reported only.
+ */
+@Tag("bench")
+class SttBenchmarkTest {
+
+    private static final String BASELINE = System.getProperty("bench.baseline");
+    private static final Path REPORT = Path.of("target", "bench", "stt-report.properties");
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("bench.tolerance", "0.25"));
+
+    private static final Map<String, Double> measured = new TreeMap<>();
+
+    @Test
+    void stagesWithinBaseline() throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(SttStageBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true)
+                .build()).run();
+
+        for (RunResult r : results) {
+            String bench = r.getParams().getBenchmark();
+            bench = bench.substring(bench.lastIndexOf('.') + 1);
+            String seconds = r.getParams().getParam("seconds");
+            String key = "stage." + bench + (seconds == null ? "" : "." + seconds + "s");
+            measured.put(key + ".us_per_op", r.getPrimaryResult().getScore());
+            Result<?> alloc = r.getSecondaryResults().get("gc.alloc.rate.norm");
+            if (alloc != null) measured.put(key + ".alloc_bytes_per_op", alloc.getScore());
+        }
+        assertNoRegressions("stage.");
+    }
+
+    @Test
+    void serviceWithinBaseline() throws Exception {
+        Assumptions.assumeTrue(new ClassPathResource("voice_model/stt_en_with_norm.pt").exists(),
+                "STT model not bundled; skipping the end-to-end load driver");
+
+        String precision = System.getProperty("bench.precision", "fp32");
+        int maxCallers = Integer.getInteger("bench.callers", Runtime.getRuntime().availableProcessors());
+        int perCaller = Integer.getInteger("bench.requests", 8);
+
+        // Voice-search sized recordings at every noise level, plus one chunked upload
+        List<byte[]> wavs = new ArrayList<>();
+        List<Double> durations = new ArrayList<>();
+        for (int sec : new int[]{1, 3, 8}) {
+            for (int snr : SttBenchFixtures.SNR_DB) {
+                wavs.add(SttBenchFixtures.wav(sec, snr, sec * 31L + snr));
+                durations.add((double) sec);
+            }
+        }
+        wavs.add(SttBenchFixtures.wav(30, 10, 7));
+        durations.add(30.0);
+
+        try (SttService stt = new SttService(20, 1, 0, 10000, SttStageBenchmark.SNAP_MAX_EDITS, 0, precision, 0.02)) {
+            for (int i = 0; i < wavs.size(); i++) stt.transcribe(wavs.get(i)); // warm up every length once
+
+            for (int callers = 1; callers <= maxCallers; callers *= 2) {
+                ExecutorService pool = Executors.newFixedThreadPool(callers);
+                List<Future<double[]>> futures = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int c = 0; c < callers; c++) {
+                    int offset = c;
+                    futures.add(pool.submit(() -> drive(stt, wavs, durations, offset, perCaller)));
+                }
+                double[] sum = new double[DRIVE_FIELDS];
+                for (Future<double[]> f : futures) {
+                    double[] r = f.get();
+                    for (int i = 0; i < sum.length; i++) sum[i] += r[i];
+                }
+                double wallSec = (System.nanoTime() - start) / 1e9;
+                pool.shutdown();
+
+                int requests = callers * perCaller;
+                String key = "service." + precision + ".c" + callers;
+                measured.put(key + ".rtf", sum[0] / sum[1]);
+                measured.put(key + ".throughput_rps", requests / wallSec);
+                measured.put(key + ".io_ms_per_req", sum[2] / requests);
+                measured.put(key + ".forward_ms_per_req", sum[3] / requests);
+                measured.put(key + ".decode_ms_per_req", sum[4] / requests);
+                measured.put(key + ".snapWords_ms_per_req", sum[5] / requests);
+                measured.put(key + ".phraseSnap_ms_per_req", sum[6] / requests);
+                measured.put(key + ".alloc_bytes_per_req", sum[7] / requests);
+            }
+        }
+        assertNoRegressions("service.");
+    }
+
+    private static final int DRIVE_FIELDS = 8;
+
+    /**
+     * Same stages as {@link SttService#transcribe}, timed one by one.
+     * @return sums of {latency s, audio s, io ms, forward ms, decode ms, snapWords ms, phraseSnap ms},
+     *         then caller-thread bytes allocated
+     */
+    private static double[] drive(SttService stt, List<byte[]> wavs, List<Double> durations, int offset, int n) throws Exception {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+        long alloc0 = mx.getThreadAllocatedBytes(tid);
+        double[] out = new double[DRIVE_FIELDS];
+        for (int i = 0; i < n; i++) {
+            int k = (offset + i) % wavs.size();
+            SttService.Hypothesis h = stt.recognize(wavs.get(k));
+            SttService.Fixed f = stt.fixTimed(h.greedy());
+            stt.response(h, f.text());
+            out[0] += (System.nanoTime() - h.startedAt()) / 1e9;
+            out[1] += durations.get(k);
+            out[2] += (h.parsedAt() - h.startedAt()) / 1e6;
+            out[3] += (h.forwardAt() - h.parsedAt()) / 1e6;
+            out[4] += (h.decodedAt() - h.forwardAt()) / 1e6;
+            out[5] += (f.wordsAt() - f.startedAt()) / 1e6;
+            out[6] += (f.phrasesAt() - f.wordsAt()) / 1e6;
+        }
+        out[7] = mx.getThreadAllocatedBytes(tid) - alloc0;
+        return out;
+    }
+
+    private static void assertNoRegressions(String prefix) throws Exception {
+        Properties baseline = new Properties();
+        if (BASELINE != null) try (InputStream in = Files.newInputStream(Path.of(BASELINE))) { baseline.load(in); }
+
+        List<String> regressions = new ArrayList<>();
+        measured.forEach((key, value) -> {
+            if (!key.startsWith(prefix)) return;
+            String b = baseline.getProperty(key);
+            if (b == null) {
+                System.out.printf("[bench] %s = %.3f (no baseline)%n", key, value);
+                return;
+            }
+            double base = Double.parseDouble(b);
+            boolean higherIsBetter = key.endsWith("throughput_rps");
+            boolean worse = higherIsBetter ? value < base * (1 - TOLERANCE) : value > base * (1 + TOLERANCE);
+            System.out.printf("[bench] %s = %.3f (baseline %.3f)%s%n", key, value, base, worse ? "  REGRESSION" : "");
+            if (worse) regressions.add(key);
+        });
+        assertTrue(regressions.isEmpty(), "Regressed beyond " + TOLERANCE + ": " + regressions);
+    }
+
+    @AfterAll
+    static void writeReport() throws Exception {
+        StringBuilder sb = new StringBuilder("# STT benchmark report; pass a saved copy as -Dbench.baseline to gate a later run on this host\n");
+        measured.forEach((k, v) -> sb.append(k).append('=').append(String.format(Locale.ROOT, "%.3f", v)).append('\n'));
+        Files.createDirectories(REPORT.getParent());
+        Files.writeString(REPORT, sb);
+    }
+}
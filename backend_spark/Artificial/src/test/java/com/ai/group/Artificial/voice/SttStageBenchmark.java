@@ -0,0 +1,115 @@
+package com.ai.group.Artificial.voice;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the pure-Java STT stages around the model forward pass: WAV parse, greedy CTC decode,
+ * word snapping and phrase snapping. Run with {@code -prof gc} (as {@link #main} does) for allocations per op.
+ * The snap benchmarks run against an effectively cold cache, so they measure the scorer, not the LRU.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SttStageBenchmark {
+
+    static final int SNAP_MAX_EDITS = 3; // voice.stt.snap.max-edits as shipped
+
+    private SttLexicon lexicon;
+    private List<String> transcripts;
+    private List<String> snapped;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Map<String, LexiconIndex.Term> terms = new HashMap<>();
+        List<String> phrases = SttService.loadBundledLexicon(terms);
+        lexicon = new SttLexicon(LexiconIndex.build(terms, SttService.MIN_PREFIX_BUCKET), PhraseIndex.build(phrases), 0);
+        transcripts = SttBenchFixtures.transcripts(phrases, 512, 42);
+        LexiconSnapper s = new LexiconSnapper(0, SNAP_MAX_EDITS);
+        snapped = transcripts.stream().map(t -> s.snapWords(lexicon, t)).toList();
+    }
+
+    @Benchmark
+    public float[] wavParse(Audio a) throws Exception {
+        return WavUtil.readPcm16Mono16k(new ByteArrayInputStream(a.wav));
+    }
+
+    @Benchmark
+    public CtcDecoder.Result ctcDecode(Audio a) {
+        return a.decoder.decode(a.logits.duplicate(), a.vocab, 0);
+    }
+
+    @Benchmark
+    public String snapWords(Snap st) {
+        return st.snapper.snapWords(lexicon, transcripts.get(next++ & 511));
+    }
+
+    @Benchmark
+    public String phraseSnap(Snap st) {
+        return st.snapper.phraseSnap(lexicon, snapped.get(next++ & 511));
+    }
+
+    /** Recording-length dependent inputs; the snap stages only see transcripts and skip this. */
+    @State(Scope.Benchmark)
+    public static class Audio {
+        @Param({"1", "8", "30"})
+        public int seconds;
+
+        byte[] wav;
+        FloatBuffer logits;
+        int vocab;
+        CtcDecoder decoder;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            wav = SttBenchFixtures.wav(seconds, 10, 42);
+
+            Map<String, Object> meta = new ObjectMapper().readValue(
+                    new ClassPathResource("voice_model/stt_en_vocab.json").getInputStream(), new TypeReference<>() {});
+            @SuppressWarnings("unchecked")
+            Map<String, String> id2tokMap = (Map<String, String>) meta.get("id2token");
+            vocab = id2tokMap.keySet().stream().mapToInt(Integer::parseInt).max().orElse(0) + 1;
+            String[] id2token = new String[vocab];
+            id2tokMap.forEach((k, v) -> id2token[Integer.parseInt(k)] = v);
+            int blankId = ((Number) meta.get("blank_id")).intValue();
+            id2token[blankId] = "";
+            decoder = new CtcDecoder(id2token, blankId);
+            logits = SttBenchFixtures.logits(seconds, vocab, blankId, 42);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Snap {
+        LexiconSnapper snapper;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            snapper = new LexiconSnapper(0, SNAP_MAX_EDITS); // one entry per cache segment: effectively cold
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(SttStageBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+}
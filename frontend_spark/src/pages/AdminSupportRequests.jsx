@@ -1,7 +1,12 @@
-import { useEffect, useState } from "react";
+import { useEffect, useRef, useState } from "react";
 import { useNavigate } from "react-router-dom";
-import { API_BASE, ADMIN_REQUESTS } from "../config.js";
-import { fetchWithAuth } from "../utils/auth.js";
+import { API_BASE, ADMIN_REQUESTS, WS_HTTP_FROM_AGENTS } from "../config.js";
+import { fetchWithAuth, getToken } from "../utils/auth.js";
+import { Client as StompClient } from "@stomp/stompjs";
+import SockJS from "sockjs-client";
+
+const QUEUE_TOPIC = "/topic/support/queue";   // deltas: { seq, type, request, acceptedBy }
+const QUEUE_SNAPSHOT = "/app/support/queue";  // one reply: { seq, items }
 
 export default function AdminSupportRequests() {
   const [items, setItems] = useState([]);
@@ -28,6 +33,58 @@ export default function AdminSupportRequests() {
 
   useEffect(() => { load(); }, []);
 
+  // Live queue: snapshot once, then apply deltas in sequence order; a gap means resync
+  const seqRef = useRef(-1);         // -1 until the snapshot arrived
+  const pendingRef = useRef([]);     // deltas received before the snapshot
+  useEffect(() => {
+    const token = getToken();
+    if (!token) return;
+
+    const client = new StompClient({
+      webSocketFactory: () => new SockJS(WS_HTTP_FROM_AGENTS()),
+      connectHeaders: { Authorization: `Bearer ${token}` },
+      debug: () => {},
+      reconnectDelay: 3000,
+      onConnect: () => {
+        const resync = () => {
+          seqRef.current = -1;
+          const sub = client.subscribe(QUEUE_SNAPSHOT, (frame) => {
+            sub.unsubscribe();
+            const snap = JSON.parse(frame.body);
+            seqRef.current = snap.seq;
+            setItems(snap.items.map((i) => ({ ...i, status: "AWAITING" })));
+            const buffered = pendingRef.current;
+            pendingRef.current = [];
+            buffered.forEach(apply);
+          });
+        };
+        const apply = (d) => {
+          if (seqRef.current < 0) { pendingRef.current.push(d); return; }
+          if (d.seq <= seqRef.current) return;            // already in the snapshot
+          if (d.seq !== seqRef.current + 1) { resync(); return; }
+          seqRef.current = d.seq;
+          setItems((list) => {
+            const rest = list.filter((r) => r.id !== d.request.id);
+            if (d.type === "CREATED" || d.type === "UPDATED") {
+              return [...rest, { ...d.request, status: "AWAITING" }]
+                .sort((a, b) => String(a.createdAt).localeCompare(String(b.createdAt)));
+            }
+            return rest;                                   // ACCEPTED / CLOSED leave the queue
+          });
+        };
+        client.subscribe(QUEUE_TOPIC, (frame) => apply(JSON.parse(frame.body)));
+        // the dispatcher hands us a request: open its chat
+        client.subscribe("/user/queue/support/assigned", (frame) => {
+          const task = JSON.parse(frame.body);
+          navigate(`/admin/support/chat/${task.requestId}`);
+        });
+        resync();
+      },
+    });
+    client.activate();
+    return () => { client.deactivate(); };
+  }, []);
+
   async function accept(id) {
     try {
       if (!me?.id) throw new Error("No admin id");